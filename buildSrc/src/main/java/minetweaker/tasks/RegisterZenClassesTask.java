@@ -28,10 +28,18 @@ import org.objectweb.asm.Type;
 
 /**
  * Generates a native registrar class. Finds all classes with a @ZenClass or
- * @ZenExpansion annotation and generates a class with a single static
+ * @ZenExpansion annotation and generates a class with a static
  * getClasses(List<Class>) method.  Overrides existing files if they exist.
  * (handy for having a stub in the original source)
  *
+ * The generated class also gets a static getClassTable(List<String[]>) method,
+ * which adds a row { class name, required mods, required version } per class,
+ * with the requirements taken from its @ModOnly annotation (comma separated,
+ * empty if none). Unlike getClasses, it doesn't load any of the classes, so
+ * classes for absent mods can be skipped before they are loaded. The
+ * @OnRegister methods are called from a separate static onRegister() method,
+ * which callers invoke before registering the classes, as getClasses does.
+ *
  * @author Stan Hebben
  */
 public abstract class RegisterZenClassesTask extends DefaultTask {
@@ -56,8 +64,9 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
         final String className = getClassName().get();
 
 		List<String> classNames = new ArrayList<>();
+		List<ModRequirement> requirements = new ArrayList<>();
 		List<OnRegisterMethod> onRegisterMethods = new ArrayList<>();
-		iterate(inputDir, null, classNames, onRegisterMethods);
+		iterate(inputDir, null, classNames, requirements, onRegisterMethods);
 
 		String fullClassName = className.replace('.', '/');
 
@@ -83,6 +92,47 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
 		method.visitMaxs(0, 0);
 		method.visitEnd();
 
+		// class table, without loading the classes
+		MethodVisitor table = output.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "getClassTable", "(Ljava/util/List;)V", null, null);
+		table.visitCode();
+
+		for (int i = 0; i < classNames.size(); i++) {
+			String[] row = {
+				classNames.get(i).replace('/', '.'),
+				String.join(",", requirements.get(i).mods),
+				requirements.get(i).version
+			};
+
+			table.visitVarInsn(Opcodes.ALOAD, 0);
+			table.visitLdcInsn(row.length);
+			table.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/String");
+			for (int j = 0; j < row.length; j++) {
+				table.visitInsn(Opcodes.DUP);
+				table.visitLdcInsn(j);
+				table.visitLdcInsn(row[j]);
+				table.visitInsn(Opcodes.AASTORE);
+			}
+			table.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+			table.visitInsn(Opcodes.POP);
+		}
+
+		table.visitInsn(Opcodes.RETURN);
+
+		table.visitMaxs(0, 0);
+		table.visitEnd();
+
+		MethodVisitor onRegister = output.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "onRegister", "()V", null, null);
+		onRegister.visitCode();
+
+		for (OnRegisterMethod onRegisterMethod : onRegisterMethods) {
+			onRegister.visitMethodInsn(Opcodes.INVOKESTATIC, onRegisterMethod.className, onRegisterMethod.methodName, "()V", false);
+		}
+
+		onRegister.visitInsn(Opcodes.RETURN);
+
+		onRegister.visitMaxs(0, 0);
+		onRegister.visitEnd();
+
 		output.visitEnd();
 
 		// write output file
@@ -102,23 +152,23 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
 		}
 	}
 
-	private void iterate(File dir, String pkg, List<String> classNames, List<OnRegisterMethod> onRegisterMethods) {
+	private void iterate(File dir, String pkg, List<String> classNames, List<ModRequirement> requirements, List<OnRegisterMethod> onRegisterMethods) {
 		for (File f : dir.listFiles()) {
 			if (f.isDirectory()) {
 				if (pkg == null) {
-					iterate(f, f.getName(), classNames, onRegisterMethods);
+					iterate(f, f.getName(), classNames, requirements, onRegisterMethods);
 				} else {
-					iterate(f, pkg + "/" + f.getName(), classNames, onRegisterMethods);
+					iterate(f, pkg + "/" + f.getName(), classNames, requirements, onRegisterMethods);
 				}
 			} else if (f.isFile()) {
 				if (f.getName().endsWith(".class")) {
-					processJavaClass(f, pkg, classNames, onRegisterMethods);
+					processJavaClass(f, pkg, classNames, requirements, onRegisterMethods);
 				}
 			}
 		}
 	}
 
-	private void processJavaClass(File cls, String pkg, List<String> classNames, List<OnRegisterMethod> onRegisterMethods) {
+	private void processJavaClass(File cls, String pkg, List<String> classNames, List<ModRequirement> requirements, List<OnRegisterMethod> onRegisterMethods) {
 		try(InputStream input = new BufferedInputStream(new FileInputStream(cls))) {
             ClassReader reader = new ClassReader(input);
 
@@ -128,6 +178,7 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
 
 			if (detector.isAnnotated) {
 				classNames.add(pkg + "/" + cls.getName().substring(0, cls.getName().length() - 6));
+				requirements.add(detector.modOnly);
 			}
 			for (MethodAnnotationDetector onRegisterMethod : detector.onRegister) {
 				onRegisterMethods.add(new OnRegisterMethod(
@@ -141,6 +192,7 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
 
 	private static class AnnotationDetector extends ClassVisitor {
 		private boolean isAnnotated = false;
+		private ModRequirement modOnly = new ModRequirement();
 		private List<MethodAnnotationDetector> onRegister = new ArrayList<>();
 
 		public AnnotationDetector() {
@@ -155,6 +207,8 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
 				isAnnotated = true;
 			} else if (desc.equals("Lminetweaker/annotations/BracketHandler;")) {
 				isAnnotated = true;
+			} else if (desc.equals("Lminetweaker/annotations/ModOnly;")) {
+				return new ModOnlyDetector(modOnly);
 			}
 
 			return super.visitAnnotation(desc, visible);
@@ -193,6 +247,42 @@ public abstract class RegisterZenClassesTask extends DefaultTask {
 		}
 	}
 
+	private static class ModOnlyDetector extends AnnotationVisitor {
+		private final ModRequirement requirement;
+
+		public ModOnlyDetector(ModRequirement requirement) {
+			super(Opcodes.ASM5);
+
+			this.requirement = requirement;
+		}
+
+		@Override
+		public void visit(String name, Object value) {
+			if ("version".equals(name)) {
+				requirement.version = (String) value;
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			if (!"value".equals(name)) {
+				return null;
+			}
+
+			return new AnnotationVisitor(Opcodes.ASM5) {
+				@Override
+				public void visit(String name, Object value) {
+					requirement.mods.add((String) value);
+				}
+			};
+		}
+	}
+
+	private static class ModRequirement {
+		private final List<String> mods = new ArrayList<>();
+		private String version = "";
+	}
+
 	private static class OnRegisterMethod {
 		private final String className;
 		private final String methodName;
@@ -0,0 +1,33 @@
+package minetweaker;
+
+import java.util.List;
+
+/**
+ * An undoable action that can be applied together with other actions on the same target.
+ * 
+ * When staged applying is enabled, the tweaker does not apply batchable actions while scripts are executing. Instead,
+ * it collects them per batch key and applies each batch at once after all scripts have been executed, which avoids
+ * updating a registry (and the caches built on top of it) once per action. Actions are still recorded in the order they
+ * were issued, so they are undone one by one in reverse order, as any other action.
+ * 
+ * Scripts cannot observe the effects of staged actions until all scripts have been executed.
+ */
+public interface IBatchableAction extends IUndoableAction {
+
+    /**
+     * Returns the key of the batch this action belongs to. Actions with equal keys are applied together, and must all
+     * be able to handle the other actions of the batch. Batches are applied one after the other, so all actions that
+     * change the same registry must use the same key to keep their order.
+     * 
+     * @return batch key
+     */
+    public Object getBatchKey();
+
+    /**
+     * Applies a batch of actions. Called on the first action of the batch; the batch includes this action and is in
+     * the order the actions were issued. The result must be the same as applying each action in order.
+     * 
+     * @param batch actions to apply
+     */
+    public void applyBatch(List<IBatchableAction> batch);
+}
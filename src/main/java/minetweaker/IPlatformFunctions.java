@@ -1,6 +1,8 @@
 package minetweaker;
 
 import minetweaker.api.chat.IChatMessage;
+import minetweaker.api.item.IIngredient;
+import minetweaker.api.item.IIngredientFilter;
 import minetweaker.api.item.IItemDefinition;
 
 /**
@@ -33,4 +35,15 @@ public interface IPlatformFunctions {
      * @return resulting item definition
      */
     public IItemDefinition getItemDefinition(int id);
+
+    /**
+     * Compiles a quick pre-check for the given ingredient, comparing item and damage only. Platforms without
+     * pre-checks return null.
+     * 
+     * @param ingredient ingredient to compile
+     * @return ingredient filter, or null if the ingredient cannot be pre-checked
+     */
+    public default IIngredientFilter getIngredientFilter(IIngredient ingredient) {
+        return null;
+    }
 }
@@ -0,0 +1,18 @@
+package minetweaker;
+
+/**
+ * A bracket handler that only resolves brackets starting with a fixed token, such as &lt;liquid:water&gt;.
+ *
+ * The registry indexes bracket handlers by their prefix and only offers a bracket to the handlers registered for its
+ * first token and to the handlers without a prefix, in registration order. A prefixed handler is never asked to
+ * resolve a bracket with a different first token.
+ */
+public interface IPrefixedBracketHandler extends IBracketHandler {
+
+    /**
+     * Returns the first token of all brackets this handler can resolve.
+     *
+     * @return bracket prefix
+     */
+    public String getBracketPrefix();
+}
@@ -7,6 +7,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,6 +27,7 @@ import minetweaker.api.vanilla.IVanilla;
 import minetweaker.runtime.GlobalRegistry;
 import minetweaker.runtime.ILogger;
 import minetweaker.runtime.ITweaker;
+import minetweaker.runtime.LogLevel;
 import minetweaker.runtime.MTTweaker;
 import stanhebben.zenscript.annotations.ZenClass;
 import stanhebben.zenscript.annotations.ZenExpansion;
@@ -175,6 +177,19 @@ public class MineTweakerAPI {
         getLogger().logInfo(message);
     }
 
+    /**
+     * Logs an info message, which is only built if info messages are logged anywhere. Use this for messages that are
+     * expensive to build, such as action descriptions.
+     * 
+     * @param message info message supplier
+     */
+    public static void logInfo(Supplier<String> message) {
+        ILogger logger = getLogger();
+        if (logger.isEnabled(LogLevel.INFO)) {
+            logger.logInfo(message.get());
+        }
+    }
+
     /**
      * Logs a warning message. Warning messages are displayed to admins and indicate that there is an issue. However,
      * the issue is not a large problem, and everything should run fine - besides perhaps a few things not entirely
@@ -227,11 +242,23 @@ public class MineTweakerAPI {
      * Register a class registry class. Such class must have (at least) a public static method called "getClasses" with
      * accepts a List of classes and which stores its classes into that list.
      * 
+     * If the registry also has a static "getClassTable" method, as generated by the build, the classes are read from
+     * that table instead: each row contains the class name and its @ModOnly requirements, so classes for absent mods
+     * are skipped without being loaded. Its @OnRegister methods are called first, through a static "onRegister" method,
+     * just like getClasses calls them before its classes are registered.
+     * 
      * @param registryClass
      * @param description
      */
     public static void registerClassRegistry(Class registryClass, String description) {
         try {
+            Method table = getStaticMethod(registryClass, "getClassTable", List.class);
+            if (table != null) {
+                registerClassTable(registryClass, table);
+                if (description != null) logInfo("Loaded class registry: " + description);
+                return;
+            }
+
             Method method = registryClass.getMethod("getClasses", List.class);
             if ((method.getModifiers() & Modifier.STATIC) == 0) {
                 logError("ERROR: getClasses method in " + registryClass.getName() + " isn't static");
@@ -245,11 +272,7 @@ public class MineTweakerAPI {
                             String[] value = ((ModOnly) annotation).value();
                             String version = ((ModOnly) annotation).version();
 
-                            for (String mod : value) {
-                                if (!loadedMods.contains(mod)) continue outer;
-
-                                if (!loadedMods.get(mod).getVersion().startsWith(version)) continue outer;
-                            }
+                            if (!isModAvailable(value, version)) continue outer;
                         }
                     }
 
@@ -418,4 +441,46 @@ public class MineTweakerAPI {
     public static void setIjeiRecipeRegistry(IJEIRecipeRegistry ijeiRecipeRegistry) {
         MineTweakerAPI.ijeiRecipeRegistry = ijeiRecipeRegistry;
     }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private static void registerClassTable(Class registryClass, Method table)
+            throws IllegalAccessException, InvocationTargetException {
+        List<String[]> rows = new ArrayList<String[]>();
+        table.invoke(null, rows);
+
+        Method onRegister = getStaticMethod(registryClass, "onRegister");
+        if (onRegister != null) onRegister.invoke(null);
+
+        for (String[] row : rows) {
+            String[] mods = row[1].isEmpty() ? new String[0] : row[1].split(",");
+            if (!isModAvailable(mods, row[2])) continue;
+
+            try {
+                registerClass(Class.forName(row[0], false, registryClass.getClassLoader()));
+            } catch (ClassNotFoundException | NoClassDefFoundError ex) {
+                logInfo("Class " + row[0] + " from registry " + registryClass.getName() + " not found, skipping");
+            }
+        }
+    }
+
+    private static boolean isModAvailable(String[] mods, String version) {
+        for (String mod : mods) {
+            if (!loadedMods.contains(mod)) return false;
+
+            if (!loadedMods.get(mod).getVersion().startsWith(version)) return false;
+        }
+        return true;
+    }
+
+    private static Method getStaticMethod(Class cls, String name, Class... arguments) {
+        try {
+            Method method = cls.getMethod(name, arguments);
+            return (method.getModifiers() & Modifier.STATIC) == 0 ? null : method;
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package minetweaker.api.item;
+
+/**
+ * Quick pre-check for an ingredient, provided by the platform. Only the item and damage of a stack are compared, so a
+ * stack passing the filter may still fail {@link IIngredient#matches(IItemStack)}, but a stack failing the filter never
+ * matches the ingredient.
+ */
+public interface IIngredientFilter {
+
+    /**
+     * Checks if the given stack could match the ingredient.
+     *
+     * @param stack item stack to check
+     *
+     * @return false if the stack certainly doesn't match
+     */
+    boolean mayMatch(IItemStack stack);
+}
@@ -1,19 +1,65 @@
 package minetweaker.api.logger;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import minetweaker.runtime.ILogger;
+import minetweaker.runtime.LogLevel;
 
 /**
  * @author Stan Hebben
  */
 public class FileLogger implements ILogger {
 
+    /**
+     * Determines what happens to a log line when the asynchronous buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the writer thread has made room in the buffer. If the writer thread has stopped, the line is
+         * written on the calling thread.
+         */
+        BLOCK,
+        /**
+         * Drop the line. The number of dropped lines is written to the log afterwards.
+         */
+        DROP,
+        /**
+         * Write the buffered lines and the new line on the calling thread.
+         */
+        WRITE_THROUGH
+    }
+
     private static final Pattern FORMATTING_CODE_PATTERN = Pattern
             .compile("(?i)" + String.valueOf('\u00a7') + "[0-9A-FK-OR]");
+
+    /**
+     * Number of lines written by the writer thread before the file is flushed.
+     */
+    private static final int FLUSH_LINES = 256;
+
+    /**
+     * Maximum time lines written by the writer thread stay unflushed, in milliseconds.
+     */
+    private static final long FLUSH_INTERVAL = 500;
+
     private final Writer writer;
     private final PrintWriter printWriter;
+    private final Object lock = new Object();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile BlockingQueue<LogLine> queue = null;
+    private volatile boolean running = false;
+    private volatile boolean idle = false;
+    private OverflowPolicy policy = OverflowPolicy.BLOCK;
+    private volatile LogLevel level = LogLevel.INFO;
+    private volatile Thread writerThread;
 
     public FileLogger(File output) {
         try {
@@ -26,33 +72,95 @@ public class FileLogger implements ILogger {
         }
     }
 
+    /**
+     * Switches this logger to asynchronous mode. Log lines are stored in a bounded buffer and written in batches by a
+     * background thread, which flushes the file after a number of lines or after a short delay. Errors are always
+     * written immediately, together with all lines buffered before them. The buffer is drained when the JVM shuts
+     * down.
+     *
+     * @param capacity buffer capacity, in lines
+     * @param policy   what to do when the buffer is full
+     */
+    public void setAsynchronous(int capacity, OverflowPolicy policy) {
+        synchronized (lock) {
+            if (running) return;
+
+            this.policy = policy;
+            queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+            running = true;
+
+            writerThread = new Thread(this::runWriter, "MineTweaker log writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "MineTweaker log shutdown"));
+    }
+
+    /**
+     * Sets the lowest level of messages written to the file. Command output is always written.
+     *
+     * @param level log level
+     */
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Writes all buffered lines and flushes the file.
+     */
+    public void flush() {
+        synchronized (lock) {
+            try {
+                drainQueue();
+                writer.flush();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    /**
+     * Stops the writer thread, if any, and writes all buffered lines. Lines logged afterwards are written
+     * synchronously.
+     */
+    public void close() {
+        Thread thread;
+        synchronized (lock) {
+            running = false;
+            thread = writerThread;
+            writerThread = null;
+            lock.notifyAll();
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(FLUSH_INTERVAL);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+
     @Override
     public void logCommand(String message) {
-        try {
-            writer.write(stripMessage(message) + "\n");
-            writer.flush();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        }
+        log(new LogLine("", message, null));
     }
 
     @Override
     public void logInfo(String message) {
-        try {
-            writer.write("INFO: " + stripMessage(message) + "\n");
-            writer.flush();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+        if (level.accepts(LogLevel.INFO)) {
+            log(new LogLine("INFO: ", message, null));
         }
     }
 
     @Override
     public void logWarning(String message) {
-        try {
-            writer.write("WARNING: " + stripMessage(message) + "\n");
-            writer.flush();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+        if (level.accepts(LogLevel.WARNING)) {
+            log(new LogLine("WARNING: ", message, null));
         }
     }
 
@@ -63,15 +171,13 @@ public class FileLogger implements ILogger {
 
     @Override
     public void logError(String message, Throwable exception) {
-        try {
-            writer.write("ERROR: " + stripMessage(message) + "\n");
-            if (exception != null) {
-                exception.printStackTrace(printWriter);
-            }
-            writer.flush();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        }
+        // errors often precede a crash, so they never wait in the buffer
+        writeThrough(new LogLine("ERROR: ", message, exception));
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return this.level.accepts(level);
     }
 
     /**
@@ -80,4 +186,154 @@ public class FileLogger implements ILogger {
     public String stripMessage(String message) {
         return message == null ? null : FORMATTING_CODE_PATTERN.matcher(message).replaceAll("");
     }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void log(LogLine line) {
+        BlockingQueue<LogLine> queue = this.queue;
+        if (queue == null || !running) {
+            writeThrough(line);
+            return;
+        }
+
+        if (queue.offer(line)) {
+            if (!running) {
+                // the logger was closed while adding the line; make sure it is not left in the buffer
+                flush();
+            } else if (idle) {
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+            }
+            return;
+        }
+
+        switch (policy) {
+            case BLOCK:
+                try {
+                    while (!queue.offer(line, FLUSH_INTERVAL, TimeUnit.MILLISECONDS)) {
+                        Thread thread = writerThread;
+                        if (!running || thread == null || !thread.isAlive()) {
+                            writeThrough(line);
+                            return;
+                        }
+                    }
+                    if (!running) flush();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    writeThrough(line);
+                }
+                break;
+            case DROP:
+                dropped.incrementAndGet();
+                break;
+            case WRITE_THROUGH:
+                writeThrough(line);
+                break;
+        }
+    }
+
+    private void writeThrough(LogLine line) {
+        synchronized (lock) {
+            try {
+                drainQueue();
+                write(line);
+                writer.flush();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<LogLine> batch = new ArrayList<>(FLUSH_LINES);
+        int unflushed = 0;
+        long lastFlush = System.currentTimeMillis();
+
+        try {
+            while (running) {
+                // lines are only taken from the buffer while holding the lock, to keep them in order with lines
+                // written through by other threads
+                synchronized (lock) {
+                    if (queue.isEmpty()) {
+                        // wait for a new line, or until the unflushed lines are due
+                        long timeout = unflushed == 0 ? 0
+                                : Math.max(1, FLUSH_INTERVAL - (System.currentTimeMillis() - lastFlush));
+                        idle = true;
+                        try {
+                            if (running && queue.isEmpty()) lock.wait(timeout);
+                        } finally {
+                            idle = false;
+                        }
+                    }
+
+                    queue.drainTo(batch, FLUSH_LINES);
+                    for (LogLine line : batch) {
+                        write(line);
+                    }
+                    unflushed += batch.size();
+
+                    long now = System.currentTimeMillis();
+                    boolean due = batch.isEmpty() || now - lastFlush >= FLUSH_INTERVAL;
+                    if (unflushed >= FLUSH_LINES || (unflushed > 0 && due)) {
+                        writer.flush();
+                        unflushed = 0;
+                        lastFlush = now;
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            // closed
+        } catch (IOException | RuntimeException ex) {
+            ex.printStackTrace();
+        } finally {
+            // from now on, lines are written on the logging threads
+            running = false;
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered lines. Must be called while holding the lock.
+     */
+    private void drainQueue() throws IOException {
+        BlockingQueue<LogLine> queue = this.queue;
+        if (queue == null) return;
+
+        for (LogLine line = queue.poll(); line != null; line = queue.poll()) {
+            write(line);
+        }
+    }
+
+    /**
+     * Writes a single line. Must be called while holding the lock.
+     */
+    private void write(LogLine line) throws IOException {
+        long droppedLines = dropped.getAndSet(0);
+        if (droppedLines > 0) {
+            writer.write("WARNING: " + droppedLines + " log lines were dropped because the log buffer was full\n");
+        }
+
+        writer.write(line.prefix + stripMessage(line.message) + "\n");
+        if (line.exception != null) {
+            line.exception.printStackTrace(printWriter);
+            printWriter.flush();
+        }
+    }
+
+    private static class LogLine {
+
+        private final String prefix;
+        private final String message;
+        private final Throwable exception;
+
+        public LogLine(String prefix, String message, Throwable exception) {
+            this.prefix = prefix;
+            this.message = message;
+            this.exception = exception;
+        }
+    }
 }
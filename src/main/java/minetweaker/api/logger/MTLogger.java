@@ -1,9 +1,11 @@
 package minetweaker.api.logger;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import minetweaker.api.player.IPlayer;
 import minetweaker.runtime.ILogger;
+import minetweaker.runtime.LogLevel;
 
 /**
  * @author Stan
@@ -13,16 +15,17 @@ public class MTLogger implements ILogger {
     private final List<ILogger> loggers = new ArrayList<>();
     private final List<IPlayer> players = new ArrayList<>();
     private final List<String> unprocessed = new ArrayList<>();
+    private int errorCount = 0;
 
-    public void addLogger(ILogger logger) {
+    public synchronized void addLogger(ILogger logger) {
         loggers.add(logger);
     }
 
-    public void removeLogger(ILogger logger) {
+    public synchronized void removeLogger(ILogger logger) {
         loggers.remove(logger);
     }
 
-    public void addPlayer(IPlayer player) {
+    public synchronized void addPlayer(IPlayer player) {
         players.add(player);
 
         if (!unprocessed.isEmpty()) {
@@ -30,30 +33,61 @@ public class MTLogger implements ILogger {
         }
     }
 
-    public void removePlayer(IPlayer player) {
+    public synchronized void removePlayer(IPlayer player) {
         players.remove(player);
     }
 
-    public void clear() {
+    public synchronized void clear() {
         unprocessed.clear();
     }
 
+    /**
+     * Returns the number of errors logged since startup.
+     *
+     * @return error count
+     */
+    public synchronized int getErrorCount() {
+        return errorCount;
+    }
+
     @Override
-    public void logCommand(String message) {
+    public synchronized void logCommand(String message) {
         for (ILogger logger : loggers) {
             logger.logCommand(message);
         }
     }
 
     @Override
-    public void logInfo(String message) {
+    public synchronized void logInfo(String message) {
         for (ILogger logger : loggers) {
             logger.logInfo(message);
         }
     }
 
+    /**
+     * Logs an info message, building it only if one of the loggers writes info messages.
+     *
+     * @param message message supplier
+     */
+    public void logInfo(Supplier<String> message) {
+        if (isEnabled(LogLevel.INFO)) {
+            logInfo(message.get());
+        }
+    }
+
+    @Override
+    public synchronized boolean isEnabled(LogLevel level) {
+        // warnings and errors are also sent to players
+        if (level != LogLevel.INFO) return true;
+
+        for (ILogger logger : loggers) {
+            if (logger.isEnabled(level)) return true;
+        }
+        return false;
+    }
+
     @Override
-    public void logWarning(String message) {
+    public synchronized void logWarning(String message) {
         for (ILogger logger : loggers) {
             logger.logWarning(message);
         }
@@ -75,7 +109,9 @@ public class MTLogger implements ILogger {
     }
 
     @Override
-    public void logError(String message, Throwable exception) {
+    public synchronized void logError(String message, Throwable exception) {
+        errorCount++;
+
         for (ILogger logger : loggers) {
             logger.logError(message, exception);
         }
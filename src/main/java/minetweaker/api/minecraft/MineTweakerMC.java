@@ -103,6 +103,19 @@ public class MineTweakerMC {
         return new MCItemStack(item);
     }
 
+    /**
+     * Returns a read-only MineTweaker view of this item, without copying it. Only to be used for matching; the view
+     * must not be stored or passed to scripts.
+     * 
+     * @param item minecraft item stack
+     * @return minetweaker item stack view
+     */
+    public static IItemStack getIItemStackView(ItemStack item) {
+        if (item == null) return null;
+
+        return MCItemStack.view(item);
+    }
+
     /**
      * Constructs an item stack with wildcard size.
      * 
@@ -125,7 +138,7 @@ public class MineTweakerMC {
     public static IItemStack getIItemStackWildcardSize(Item item, int meta) {
         if (item == null) return null;
 
-        return new MCItemStack(new ItemStack(item, 1, meta), true);
+        return MCItemStack.wildcardSize(item, meta);
     }
 
     /**
@@ -92,4 +92,26 @@ public interface ICraftingInventory {
      */
     @ZenMethod
     void setStack(int i, IItemStack stack);
+
+    /**
+     * Gets the placement of the given recipe found for the current contents of this inventory, if it has been matched
+     * before. Used to avoid repeating the search between matching, crafting and applying transformers. Inventories
+     * without a cache return null.
+     *
+     * @param recipe crafting recipe
+     *
+     * @return cached placement, or null if the recipe hasn't been matched against the current contents
+     */
+    default RecipeMatching getCachedMatch(ICraftingRecipe recipe) {
+        return null;
+    }
+
+    /**
+     * Caches the placement of the given recipe for the current contents of this inventory. The cache is cleared as soon
+     * as the contents change. Inventories without a cache ignore this call.
+     *
+     * @param recipe   crafting recipe
+     * @param matching placement of the recipe
+     */
+    default void setCachedMatch(ICraftingRecipe recipe, RecipeMatching matching) {}
 }
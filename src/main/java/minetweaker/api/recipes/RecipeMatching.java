@@ -0,0 +1,18 @@
+package minetweaker.api.recipes;
+
+import minetweaker.api.item.IItemStack;
+
+/**
+ * Placement of a crafting recipe in a crafting inventory: the matched stack and inventory index of every recipe
+ * ingredient, in ingredient order.
+ */
+public class RecipeMatching {
+
+    public final IItemStack[] inputs;
+    public final int[] indices;
+
+    public RecipeMatching(IItemStack[] inputs, int[] indices) {
+        this.inputs = inputs;
+        this.indices = indices;
+    }
+}
@@ -2,6 +2,7 @@ package minetweaker.api.recipes;
 
 import java.util.*;
 
+import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.api.item.*;
 import minetweaker.api.player.IPlayer;
 
@@ -21,6 +22,8 @@ public class ShapedRecipe implements ICraftingRecipe {
     private final IItemStack output;
     private final IIngredient[] ingredients;
 
+    private IIngredientFilter[] filters;
+
     public ShapedRecipe(IItemStack output, IIngredient[][] ingredients, IRecipeFunction function, boolean mirrored) {
         this(output, ingredients, function, null, mirrored);
     }
@@ -99,72 +102,18 @@ public class ShapedRecipe implements ICraftingRecipe {
         if (inventory.getStackCount() != ingredients.length) {
             return false;
         }
-        for (int i = 0; i <= inventory.getWidth() - width; i++) {
-            out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
-                for (int k = 0; k < ingredients.length; k++) {
-                    IItemStack item = inventory.getStack(posx[k] + i, posy[k] + j);
-                    if (item == null) continue out;
-
-                    if (!ingredients[k].matches(item)) continue out;
-                }
-
-                return true;
-            }
-        }
-
-        if (mirrored) {
-            for (int i = 0; i <= inventory.getWidth() - width; i++) {
-                out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
-                    for (int k = 0; k < ingredients.length; k++) {
-                        IItemStack item = inventory.getStack(inventory.getWidth() - (posx[k] + i) - 1, posy[k] + j);
-                        if (item == null) continue out;
-
-                        if (!ingredients[k].matches(item)) continue out;
-                    }
-
-                    return true;
-                }
-            }
-        }
 
-        return false;
+        return findMatch(inventory) != null;
     }
 
     @Override
     public IItemStack getCraftingResult(ICraftingInventory inventory) {
-        IItemStack[] stacks = new IItemStack[ingredients.length];
-
-        for (int i = 0; i <= inventory.getWidth() - width; i++) {
-            out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
-                for (int k = 0; k < ingredients.length; k++) {
-                    IItemStack item = inventory.getStack(posx[k] + i, posy[k] + j);
-                    if (item == null) continue out;
-
-                    if (!ingredients[k].matches(item)) continue out;
-                    stacks[k] = item;
-                }
-
-                return doRecipe(inventory, stacks, i, j, output, false);
-            }
-        }
-
-        if (mirrored) {
-            for (int i = 0; i <= inventory.getWidth() - width; i++) {
-                out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
-                    for (int k = 0; k < ingredients.length; k++) {
-                        IItemStack item = inventory.getStack(inventory.getWidth() - (posx[k] + i) - 1, posy[k] + j);
-                        if (item == null) continue out;
-
-                        if (!ingredients[k].matches(item)) continue out;
-                        stacks[k] = item;
-                    }
-
-                    return doRecipe(inventory, stacks, i, j, output, true);
-                }
-            }
+        RecipeMatching matching = findMatch(inventory);
+        if (matching == null) {
+            return null;
         }
 
-        return null;
+        return doRecipe(inventory, matching.inputs, output);
     }
 
     @Override
@@ -180,38 +129,9 @@ public class ShapedRecipe implements ICraftingRecipe {
 
     @Override
     public void applyTransformers(ICraftingInventory inventory, IPlayer byPlayer) {
-        IItemStack[] stacks = new IItemStack[ingredients.length];
-
-        for (int i = 0; i <= inventory.getWidth() - width; i++) {
-            out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
-                for (int k = 0; k < ingredients.length; k++) {
-                    IItemStack item = inventory.getStack(posx[k] + i, posy[k] + j);
-                    if (item == null) continue out;
-
-                    if (!ingredients[k].matches(item)) continue out;
-                    stacks[k] = item;
-                }
-
-                doRecipeTransformers(inventory, stacks, i, j, false, byPlayer);
-                return;
-            }
-        }
-
-        if (mirrored) {
-            for (int i = 0; i <= inventory.getWidth() - width; i++) {
-                out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
-                    for (int k = 0; k < ingredients.length; k++) {
-                        IItemStack item = inventory.getStack(inventory.getWidth() - (posx[k] + i) - 1, posy[k] + j);
-                        if (item == null) continue out;
-
-                        if (!ingredients[k].matches(item)) continue out;
-                        stacks[k] = item;
-                    }
-
-                    doRecipeTransformers(inventory, stacks, i, j, true, byPlayer);
-                    return;
-                }
-            }
+        RecipeMatching matching = findMatch(inventory);
+        if (matching != null) {
+            doRecipeTransformers(inventory, matching, byPlayer);
         }
     }
 
@@ -251,8 +171,69 @@ public class ShapedRecipe implements ICraftingRecipe {
         return result.toString();
     }
 
-    private IItemStack doRecipe(ICraftingInventory inventory, IItemStack[] stacks, int offx, int offy,
-            IItemStack output, boolean mirrored) {
+    /**
+     * Finds the placement of this recipe in the given inventory. The placement is cached on the inventory, so matching,
+     * crafting and applying transformers only search the grid once per craft.
+     *
+     * @param inventory crafting inventory
+     * @return recipe placement, or null if the recipe doesn't match
+     */
+    private RecipeMatching findMatch(ICraftingInventory inventory) {
+        RecipeMatching cached = inventory.getCachedMatch(this);
+        if (cached != null) {
+            return cached;
+        }
+
+        IIngredientFilter[] filters = getFilters();
+        int inventoryWidth = inventory.getWidth();
+
+        for (int pass = 0; pass < (mirrored ? 2 : 1); pass++) {
+            boolean mirror = pass == 1;
+
+            for (int i = 0; i <= inventoryWidth - width; i++) {
+                out: for (int j = 0; j <= inventory.getHeight() - height; j++) {
+                    for (int k = 0; k < ingredients.length; k++) {
+                        int x = mirror ? inventoryWidth - (posx[k] + i) - 1 : posx[k] + i;
+                        IItemStack item = inventory.getStack(x, posy[k] + j);
+                        if (item == null) continue out;
+
+                        if (filters[k] != null && !filters[k].mayMatch(item)) continue out;
+                        if (!ingredients[k].matches(item)) continue out;
+                    }
+
+                    IItemStack[] stacks = new IItemStack[ingredients.length];
+                    int[] indices = new int[ingredients.length];
+                    for (int k = 0; k < ingredients.length; k++) {
+                        int x = mirror ? inventoryWidth - (posx[k] + i) - 1 : posx[k] + i;
+                        indices[k] = (posy[k] + j) * inventoryWidth + x;
+                        stacks[k] = inventory.getStack(indices[k]);
+                    }
+
+                    RecipeMatching matching = new RecipeMatching(stacks, indices);
+                    inventory.setCachedMatch(this, matching);
+                    return matching;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private IIngredientFilter[] getFilters() {
+        if (filters == null) {
+            IIngredientFilter[] compiled = new IIngredientFilter[ingredients.length];
+            if (MineTweakerImplementationAPI.platform != null) {
+                for (int k = 0; k < ingredients.length; k++) {
+                    compiled[k] = MineTweakerImplementationAPI.platform.getIngredientFilter(ingredients[k]);
+                }
+            }
+            filters = compiled;
+        }
+
+        return filters;
+    }
+
+    private IItemStack doRecipe(ICraftingInventory inventory, IItemStack[] stacks, IItemStack output) {
         // determine output and apply transformations
 
         if (function != null) {
@@ -272,26 +253,14 @@ public class ShapedRecipe implements ICraftingRecipe {
             return null;
         }
 
-        /*
-         * for (int i = 0; i < ingredients.length; i++) { IItemStack transformed =
-         * ingredients[i].applyTransform(stacks[i]); if (transformed != stacks[i]) { if (mirrored) { inventory.setStack(
-         * inventory.getWidth() - (offx + posx[i]) - 1, offy + posy[i], transformed); } else { inventory.setStack( offx
-         * + posx[i], offy + posy[i], transformed); } } }
-         */
-
         return output;
     }
 
-    private void doRecipeTransformers(ICraftingInventory inventory, IItemStack[] stacks, int offx, int offy,
-            boolean mirrored, IPlayer byPlayer) {
+    private void doRecipeTransformers(ICraftingInventory inventory, RecipeMatching matching, IPlayer byPlayer) {
         for (int i = 0; i < ingredients.length; i++) {
-            IItemStack transformed = ingredients[i].applyTransform(stacks[i], byPlayer);
-            if (transformed != stacks[i]) {
-                if (mirrored) {
-                    inventory.setStack(inventory.getWidth() - (offx + posx[i]) - 1, offy + posy[i], transformed);
-                } else {
-                    inventory.setStack(offx + posx[i], offy + posy[i], transformed);
-                }
+            IItemStack transformed = ingredients[i].applyTransform(matching.inputs[i], byPlayer);
+            if (transformed != matching.inputs[i]) {
+                inventory.setStack(matching.indices[i], transformed);
             }
         }
     }
@@ -299,4 +268,8 @@ public class ShapedRecipe implements ICraftingRecipe {
     public IRecipeAction getAction() {
         return action;
     }
+
+    public IRecipeFunction getFunction() {
+        return function;
+    }
 }
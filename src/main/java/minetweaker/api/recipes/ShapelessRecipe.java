@@ -2,6 +2,7 @@ package minetweaker.api.recipes;
 
 import java.util.*;
 
+import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.api.item.*;
 import minetweaker.api.player.IPlayer;
 
@@ -15,6 +16,8 @@ public class ShapelessRecipe implements ICraftingRecipe {
     private final IRecipeAction action;
     private final IIngredient[] ingredients;
 
+    private IIngredientFilter[] filters;
+
     public ShapelessRecipe(IItemStack output, IIngredient[] ingredients, IRecipeFunction function,
             IRecipeAction action) {
         this.output = output;
@@ -24,35 +27,42 @@ public class ShapelessRecipe implements ICraftingRecipe {
     }
 
     /**
-     * Reorders ingredients to match the given shapeless recipe.
+     * Reorders ingredients to match this shapeless recipe. The result is cached on the inventory, so matching, crafting
+     * and applying transformers only search the grid once per craft.
      *
-     * @param recipe      shapeless recipe
-     * @param ingredients crafting input
+     * @param inventory crafting input
      *
      * @return reordered inputs, or null if no match was found
      */
-    private static RecipeMatching matchShapeless(IIngredient[] recipe, ICraftingInventory ingredients) {
+    private RecipeMatching matchShapeless(ICraftingInventory inventory) {
+        RecipeMatching cached = inventory.getCachedMatch(this);
+        if (cached != null) {
+            return cached;
+        }
+
         int numItems = 0;
-        for (int i = 0; i < ingredients.getSize(); i++) {
-            if (ingredients.getStack(i) != null) {
+        for (int i = 0; i < inventory.getSize(); i++) {
+            if (inventory.getStack(i) != null) {
                 numItems++;
             }
         }
 
-        if (numItems != recipe.length) {
+        if (numItems != ingredients.length) {
             return null;
         }
 
-        IItemStack[] matched = new IItemStack[recipe.length];
-        int[] indices = new int[recipe.length];
+        IIngredientFilter[] filters = getFilters();
+        IItemStack[] matched = new IItemStack[ingredients.length];
+        int[] indices = new int[ingredients.length];
 
-        outer: for (int i = 0; i < ingredients.getSize(); i++) {
-            IItemStack ingredient = ingredients.getStack(i);
+        outer: for (int i = 0; i < inventory.getSize(); i++) {
+            IItemStack ingredient = inventory.getStack(i);
             if (ingredient == null) continue;
 
-            for (int j = 0; j < recipe.length; j++) {
+            for (int j = 0; j < ingredients.length; j++) {
                 if (matched[j] != null) continue;
-                if (recipe[j].matches(ingredient)) {
+                if (filters[j] != null && !filters[j].mayMatch(ingredient)) continue;
+                if (ingredients[j].matches(ingredient)) {
                     matched[j] = ingredient;
                     indices[j] = i;
                     continue outer;
@@ -62,7 +72,23 @@ public class ShapelessRecipe implements ICraftingRecipe {
             return null;
         }
 
-        return new RecipeMatching(matched, indices);
+        RecipeMatching matching = new RecipeMatching(matched, indices);
+        inventory.setCachedMatch(this, matching);
+        return matching;
+    }
+
+    private IIngredientFilter[] getFilters() {
+        if (filters == null) {
+            IIngredientFilter[] compiled = new IIngredientFilter[ingredients.length];
+            if (MineTweakerImplementationAPI.platform != null) {
+                for (int j = 0; j < ingredients.length; j++) {
+                    compiled[j] = MineTweakerImplementationAPI.platform.getIngredientFilter(ingredients[j]);
+                }
+            }
+            filters = compiled;
+        }
+
+        return filters;
     }
 
     public int getSize() {
@@ -79,15 +105,18 @@ public class ShapelessRecipe implements ICraftingRecipe {
 
     @Override
     public boolean matches(ICraftingInventory inventory) {
-        return matchShapeless(ingredients, inventory) != null;
+        return matchShapeless(inventory) != null;
     }
 
     @Override
     public IItemStack getCraftingResult(ICraftingInventory inventory) {
-        RecipeMatching matching = matchShapeless(ingredients, inventory);
-
         IItemStack actualOutput = output;
         if (function != null) {
+            RecipeMatching matching = matchShapeless(inventory);
+            if (matching == null) {
+                return null;
+            }
+
             Map<String, IItemStack> map = new HashMap<>();
             for (int i = 0; i < ingredients.length; i++) {
                 if (ingredients[i].getMark() != null) {
@@ -107,7 +136,10 @@ public class ShapelessRecipe implements ICraftingRecipe {
 
     @Override
     public void applyTransformers(ICraftingInventory inventory, IPlayer byPlayer) {
-        RecipeMatching matching = matchShapeless(ingredients, inventory);
+        RecipeMatching matching = matchShapeless(inventory);
+        if (matching == null) {
+            return;
+        }
 
         for (int i = 0; i < ingredients.length; i++) {
             IIngredient ingredient = ingredients[i];
@@ -156,14 +188,7 @@ public class ShapelessRecipe implements ICraftingRecipe {
         return action;
     }
 
-    private static class RecipeMatching {
-
-        public final IItemStack[] inputs;
-        public final int[] indices;
-
-        public RecipeMatching(IItemStack[] inputs, int[] indices) {
-            this.inputs = inputs;
-            this.indices = indices;
-        }
+    public IRecipeFunction getFunction() {
+        return function;
     }
 }
@@ -18,6 +18,8 @@ public class IngredientTooltips {
     private static final IngredientMap<IFormattedText> TOOLTIPS = new IngredientMap<>();
     private static final IngredientMap<IFormattedText> SHIFT_TOOLTIPS = new IngredientMap<>();
 
+    private static volatile int generation = 0;
+
     @ZenMethod
     public static void addTooltip(IIngredient ingredient, IFormattedText tooltip) {
         MineTweakerAPI.apply(new AddTooltipAction(ingredient, tooltip, false));
@@ -36,6 +38,16 @@ public class IngredientTooltips {
         return SHIFT_TOOLTIPS.getEntries(item);
     }
 
+    /**
+     * Returns a counter which changes whenever a tooltip is added or removed. Platforms may cache tooltip lookups as
+     * long as the generation stays the same.
+     *
+     * @return current tooltip generation
+     */
+    public static int getGeneration() {
+        return generation;
+    }
+
     // ######################
     // ### Action classes ###
     // ######################
@@ -56,6 +68,7 @@ public class IngredientTooltips {
         @Override
         public void apply() {
             entry = (shift ? SHIFT_TOOLTIPS : TOOLTIPS).register(ingredient, tooltip);
+            generation++;
             MineTweakerAPI.getIjeiRecipeRegistry().invalidateTooltips(ingredient);
         }
 
@@ -71,6 +84,7 @@ public class IngredientTooltips {
             } else {
                 TOOLTIPS.unregister(entry);
             }
+            generation++;
             MineTweakerAPI.getIjeiRecipeRegistry().invalidateTooltips(ingredient);
         }
 
@@ -1,21 +1,20 @@
 package minetweaker.mc1710;
 
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.inventory.InventoryCrafting;
 
 import org.lwjgl.input.Keyboard;
 
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.gameevent.PlayerEvent;
 import cpw.mods.fml.common.gameevent.TickEvent;
-import minetweaker.MineTweakerAPI;
 import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.api.event.PlayerCraftedEvent;
 import minetweaker.api.event.PlayerLoggedInEvent;
 import minetweaker.api.event.PlayerLoggedOutEvent;
 import minetweaker.api.event.PlayerSmeltedEvent;
 import minetweaker.api.minecraft.MineTweakerMC;
-import minetweaker.api.player.IPlayer;
-import minetweaker.mc1710.network.MineTweakerLoadScriptsPacket;
+import minetweaker.mc1710.network.ScriptSync;
 import minetweaker.mc1710.recipes.MCCraftingInventory;
 import minetweaker.mc1710.recipes.MCRecipeManager;
 
@@ -41,26 +40,29 @@ public class FMLEventHandler {
     @SubscribeEvent
     public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent ev) {
         if (ev.player instanceof EntityPlayerMP && MineTweakerConfig.sendLoadScripts) {
-            EntityPlayerMP player = (EntityPlayerMP) ev.player;
-            MineTweakerMod.NETWORK
-                    .sendTo(new MineTweakerLoadScriptsPacket(MineTweakerAPI.tweaker.getScriptData()), player);
+            ScriptSync.INSTANCE.sendManifest((EntityPlayerMP) ev.player);
         }
 
-        MineTweakerImplementationAPI.events
-                .publishPlayerLoggedIn(new PlayerLoggedInEvent(MineTweakerMC.getIPlayer(ev.player)));
+        if (MineTweakerImplementationAPI.events.hasPlayerLoggedIn()) {
+            MineTweakerImplementationAPI.events
+                    .publishPlayerLoggedIn(new PlayerLoggedInEvent(MineTweakerMC.getIPlayer(ev.player)));
+        }
     }
 
     @SubscribeEvent
     public void onPlayerItemCrafted(PlayerEvent.ItemCraftedEvent ev) {
-        IPlayer iPlayer = MineTweakerMC.getIPlayer(ev.player);
         if (MCRecipeManager.hasTransformerRecipes()) {
-            MCRecipeManager.applyTransformations(MCCraftingInventory.get(ev.craftMatrix, ev.player), iPlayer);
+            MCRecipeManager.applyTransformations(
+                    MCCraftingInventory.get(ev.craftMatrix, ev.player),
+                    ev.craftMatrix instanceof InventoryCrafting ? (InventoryCrafting) ev.craftMatrix : null,
+                    ev.crafting,
+                    MineTweakerMC.getIPlayer(ev.player));
         }
 
         if (MineTweakerImplementationAPI.events.hasPlayerCrafted()) {
             MineTweakerImplementationAPI.events.publishPlayerCrafted(
                     new PlayerCraftedEvent(
-                            iPlayer,
+                            MineTweakerMC.getIPlayer(ev.player),
                             MineTweakerMC.getIItemStack(ev.crafting),
                             MCCraftingInventory.get(ev.craftMatrix, ev.player)));
         }
@@ -78,8 +80,10 @@ public class FMLEventHandler {
 
     @SubscribeEvent
     public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent ev) {
-        MineTweakerImplementationAPI.events
-                .publishPlayerLoggedOut(new PlayerLoggedOutEvent(MineTweakerMC.getIPlayer(ev.player)));
+        if (MineTweakerImplementationAPI.events.hasPlayerLoggedOut()) {
+            MineTweakerImplementationAPI.events
+                    .publishPlayerLoggedOut(new PlayerLoggedOutEvent(MineTweakerMC.getIPlayer(ev.player)));
+        }
     }
 
 }
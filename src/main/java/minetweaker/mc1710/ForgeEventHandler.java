@@ -5,30 +5,24 @@
 
 package minetweaker.mc1710;
 
-import java.util.*;
-
 import net.minecraft.client.multiplayer.GuiConnecting;
 import net.minecraft.entity.*;
-import net.minecraft.entity.item.*;
 import net.minecraft.entity.player.*;
-import net.minecraft.item.*;
 import net.minecraftforge.client.event.GuiOpenEvent;
 import net.minecraftforge.event.entity.living.*;
 import net.minecraftforge.event.entity.player.ItemTooltipEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
+import net.minecraftforge.oredict.OreDictionary;
 
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 import minetweaker.*;
-import minetweaker.api.entity.*;
-import minetweaker.api.formatting.IFormattedText;
-import minetweaker.api.item.IItemStack;
 import minetweaker.api.minecraft.MineTweakerMC;
-import minetweaker.api.tooltip.IngredientTooltips;
-import minetweaker.mc1710.formatting.IMCFormattedString;
-import minetweaker.mc1710.item.*;
-import stanhebben.zenscript.value.*;
+import minetweaker.mc1710.client.TooltipCache;
+import minetweaker.mc1710.entity.MCEntityDefinition;
+import minetweaker.mc1710.game.MCGame;
+import minetweaker.mc1710.oredict.OreDictIndex;
 
 /**
  * @author Stan
@@ -37,6 +31,8 @@ public class ForgeEventHandler {
 
     @SubscribeEvent
     public void onPlayerInteract(PlayerInteractEvent ev) {
+        if (!MineTweakerImplementationAPI.events.hasPlayerInteract()) return;
+
         minetweaker.api.event.PlayerInteractEvent event = new minetweaker.api.event.PlayerInteractEvent(
                 MineTweakerMC.getIPlayer(ev.entityPlayer),
                 MineTweakerMC.getDimension(ev.world),
@@ -56,86 +52,36 @@ public class ForgeEventHandler {
     @SubscribeEvent
     public void onItemTooltip(ItemTooltipEvent ev) {
         if (ev.itemStack != null) {
-            IItemStack itemStack = MineTweakerMC.getIItemStack(ev.itemStack);
-            for (IFormattedText tooltip : IngredientTooltips.getTooltips(itemStack)) {
-                ev.toolTip.add(((IMCFormattedString) tooltip).getTooltipString());
+            for (String tooltip : TooltipCache.INSTANCE.getTooltips(ev.itemStack, false)) {
+                ev.toolTip.add(tooltip);
             }
 
             if (FMLEventHandler.isShiftDown()) {
-                for (IFormattedText tooltip : IngredientTooltips.getShiftTooltips(itemStack)) {
-                    ev.toolTip.add(((IMCFormattedString) tooltip).getTooltipString());
+                for (String tooltip : TooltipCache.INSTANCE.getTooltips(ev.itemStack, true)) {
+                    ev.toolTip.add(tooltip);
                 }
             }
         }
     }
 
+    @SubscribeEvent
+    public void onOreRegister(OreDictionary.OreRegisterEvent ev) {
+        OreDictIndex.INSTANCE.add(OreDictionary.getOreID(ev.Name), ev.Ore);
+    }
+
     @SubscribeEvent
     public void onLivingDeathDrops(LivingDropsEvent ev) {
-        final EntityLivingBase entity = ev.entityLiving;
-        final IEntityDefinition iEntity = MineTweakerAPI.game.getEntity(EntityList.getEntityString(entity));
-        if (iEntity == null) {
+        // most deaths are of entities without drop changes; leave before any lookup in that case
+        if (!MCEntityDefinition.hasAnyDropChanges()) {
             return;
         }
 
-        if (!iEntity.getDropsToAdd().isEmpty()) {
-            for (Map.Entry<IItemStack, IntRange> dropToAdd : iEntity.getDropsToAdd().entrySet()) {
-                final IItemStack key = dropToAdd.getKey();
-                final IntRange val = dropToAdd.getValue();
-
-                final EntityItem item;
-                if (val.getMin() == 0 && val.getMax() == 0) {
-                    item = new EntityItem(
-                            entity.worldObj,
-                            entity.posX + 0.5,
-                            entity.posY + 0.5,
-                            entity.posZ + 0.5,
-                            ((ItemStack) key.getInternal()).copy());
-                } else {
-                    item = new EntityItem(
-                            entity.worldObj,
-                            entity.posX + 0.5,
-                            entity.posY + 0.5,
-                            entity.posZ + 0.5,
-                            ((ItemStack) key.withAmount(val.getRandom()).getInternal()).copy());
-                }
-                ev.drops.add(item);
-            }
-        }
-
-        if (!iEntity.getDropsToAddPlayerOnly().isEmpty() && ev.source.getEntity() instanceof EntityPlayer) {
-            for (Map.Entry<IItemStack, IntRange> dropToAdd : iEntity.getDropsToAddPlayerOnly().entrySet()) {
-                final IItemStack key = dropToAdd.getKey();
-                final IntRange val = dropToAdd.getValue();
-
-                final EntityItem item;
-                if (val.getMin() == 0 && val.getMax() == 0) {
-                    item = new EntityItem(
-                            entity.worldObj,
-                            entity.posX + 0.5,
-                            entity.posY + 0.5,
-                            entity.posZ + 0.5,
-                            ((ItemStack) key.getInternal()).copy());
-                } else {
-                    item = new EntityItem(
-                            entity.worldObj,
-                            entity.posX + 0.5,
-                            entity.posY + 0.5,
-                            entity.posZ + 0.5,
-                            ((ItemStack) key.withAmount(val.getRandom()).getInternal()).copy());
-                }
-                ev.drops.add(item);
-            }
+        final EntityLivingBase entity = ev.entityLiving;
+        final MCEntityDefinition iEntity = MCGame.INSTANCE.getEntity(entity.getClass());
+        if (iEntity == null || !iEntity.hasDropChanges()) {
+            return;
         }
 
-        if (!iEntity.getDropsToRemove().isEmpty()) {
-            for (IItemStack iItemStack : iEntity.getDropsToRemove()) {
-                for (Iterator<EntityItem> iterator = ev.drops.iterator(); iterator.hasNext();) {
-                    EntityItem drop = iterator.next();
-                    if (iItemStack.matches(new MCItemStack(drop.getEntityItem()))) {
-                        iterator.remove();
-                    }
-                }
-            }
-        }
+        iEntity.getDropPlan().apply(entity, ev.source.getEntity() instanceof EntityPlayer, ev.drops);
     }
 }
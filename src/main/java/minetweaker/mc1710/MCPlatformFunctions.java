@@ -9,10 +9,13 @@ import net.minecraft.item.Item;
 
 import minetweaker.IPlatformFunctions;
 import minetweaker.api.chat.IChatMessage;
+import minetweaker.api.item.IIngredient;
+import minetweaker.api.item.IIngredientFilter;
 import minetweaker.api.item.IItemDefinition;
 import minetweaker.mc1710.chat.MCChatMessage;
+import minetweaker.mc1710.item.MCIngredientFilter;
 import minetweaker.mc1710.item.MCItemDefinition;
-import minetweaker.mc1710.network.MineTweakerLoadScriptsPacket;
+import minetweaker.mc1710.network.ScriptSync;
 
 /**
  *
@@ -32,7 +35,7 @@ public class MCPlatformFunctions implements IPlatformFunctions {
     @Override
     public void distributeScripts(byte[] data) {
         if (MineTweakerConfig.sendScriptsOnReloading)
-            MineTweakerMod.NETWORK.sendToAll(new MineTweakerLoadScriptsPacket(data));
+            ScriptSync.INSTANCE.sendManifestToAll();
     }
 
     @Override
@@ -42,4 +45,9 @@ public class MCPlatformFunctions implements IPlatformFunctions {
         String sid = Item.itemRegistry.getNameForObject(item);
         return new MCItemDefinition(sid, item);
     }
+
+    @Override
+    public IIngredientFilter getIngredientFilter(IIngredient ingredient) {
+        return MCIngredientFilter.compile(ingredient);
+    }
 }
@@ -4,12 +4,19 @@ import java.io.File;
 
 import net.minecraftforge.common.config.Configuration;
 
+import minetweaker.api.logger.FileLogger;
+import minetweaker.runtime.LogLevel;
+
 public class MineTweakerConfig {
 
     private MineTweakerConfig() {}
 
     public static boolean handleDesktopPackets = false, handleLoadScripts = true, sendLoadScripts = true,
-            sendScriptsOnReloading = true, loadScriptsBeforeConnection = false, antiStuck = true;
+            sendScriptsOnReloading = true, loadScriptsBeforeConnection = false, antiStuck = true, asyncLogging = false,
+            scriptCache = false, parallelParsing = false, stagedApply = false;
+    public static int logBufferSize = 8192;
+    public static FileLogger.OverflowPolicy logOverflowPolicy = FileLogger.OverflowPolicy.BLOCK;
+    public static LogLevel logLevel = LogLevel.INFO;
     static File file;
 
     public static void load() {
@@ -44,6 +51,55 @@ public class MineTweakerConfig {
                 "core",
                 false,
                 "Do not reload scripts when relogging, saves time. Usable when playing on one server/singleplayer...");
+        scriptCache = config.getBoolean(
+                "scriptCache",
+                "core",
+                false,
+                "Cache compiled scripts in the minetweaker-cache directory, and skip compiling script groups that did not change.");
+        parallelParsing = config.getBoolean(
+                "parallelParsing",
+                "core",
+                false,
+                "Parse the script files of a group on multiple threads. Bracket handlers are still called one at a time.");
+        stagedApply = config.getBoolean(
+                "stagedApply",
+                "core",
+                false,
+                "Apply furnace recipe additions and removals in batches after all scripts have run. Scripts will not see these changes while running.");
+        asyncLogging = config.getBoolean(
+                "asyncLogging",
+                "logging",
+                false,
+                "Write minetweaker.log from a background thread in batches, instead of flushing after every line.");
+        logBufferSize = config.getInt(
+                "logBufferSize",
+                "logging",
+                8192,
+                1,
+                1048576,
+                "Number of log lines buffered for the background writer.");
+        String overflowPolicy = config.getString(
+                "logOverflowPolicy",
+                "logging",
+                "BLOCK",
+                "What to do when the log buffer is full: BLOCK waits for the writer, DROP discards the line, WRITE_THROUGH writes it on the logging thread.",
+                new String[] { "BLOCK", "DROP", "WRITE_THROUGH" });
+        try {
+            logOverflowPolicy = FileLogger.OverflowPolicy.valueOf(overflowPolicy);
+        } catch (IllegalArgumentException ex) {
+            logOverflowPolicy = FileLogger.OverflowPolicy.BLOCK;
+        }
+        String level = config.getString(
+                "logLevel",
+                "logging",
+                "INFO",
+                "Lowest level of messages written to minetweaker.log. Above INFO, action descriptions are not even built, which speeds up loading large scripts.",
+                new String[] { "INFO", "WARNING", "ERROR" });
+        try {
+            logLevel = LogLevel.valueOf(level);
+        } catch (IllegalArgumentException ex) {
+            logLevel = LogLevel.INFO;
+        }
         config.save();
     }
 }
@@ -6,16 +6,26 @@
 package minetweaker.mc1710;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
+import net.minecraft.item.Item;
 import net.minecraft.item.crafting.CraftingManager;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.oredict.OreDictionary;
 
 import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.Loader;
 import cpw.mods.fml.common.Mod;
 import cpw.mods.fml.common.Mod.EventHandler;
+import cpw.mods.fml.common.ModContainer;
 import cpw.mods.fml.common.event.*;
 import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.common.network.simpleimpl.SimpleNetworkWrapper;
@@ -42,6 +52,7 @@ import minetweaker.runtime.*;
 import minetweaker.runtime.providers.ScriptProviderCascade;
 import minetweaker.runtime.providers.ScriptProviderCustom;
 import minetweaker.runtime.providers.ScriptProviderDirectory;
+import minetweaker.util.HashUtil;
 
 /**
  * Main mod class. Performs some general logic, initialization of the API and FML event handling.
@@ -78,14 +89,26 @@ public class MineTweakerMod {
                 MineTweakerCopyClipboardPacket.class,
                 2,
                 Side.CLIENT);
+        NETWORK.registerMessage(
+                MineTweakerRequestScriptsHandler.class,
+                MineTweakerRequestScriptsPacket.class,
+                3,
+                Side.SERVER);
+        NETWORK.registerMessage(
+                MineTweakerScriptChunkHandler.class,
+                MineTweakerScriptChunkPacket.class,
+                4,
+                Side.CLIENT);
     }
 
     @Mod.Instance(MODID)
     public static MineTweakerMod INSTANCE;
 
+    private final FileLogger fileLogger;
     private final IScriptProvider scriptsGlobal;
     private final ScriptProviderCustom scriptsIMC;
     private volatile boolean loaded = false;
+    private ScriptCache scriptCache = null;
 
     public MineTweakerMod() {
         MCRecipeManager.recipes = (List<IRecipe>) CraftingManager.getInstance().getRecipeList();
@@ -98,7 +121,8 @@ public class MineTweakerMod {
                 new MCFormatter(),
                 new MCVanilla());
 
-        MineTweakerImplementationAPI.logger.addLogger(new FileLogger(new File("minetweaker.log")));
+        fileLogger = new FileLogger(new File("minetweaker.log"));
+        MineTweakerImplementationAPI.logger.addLogger(fileLogger);
         MineTweakerImplementationAPI.platform = MCPlatformFunctions.INSTANCE;
 
         File globalDir = new File("scripts");
@@ -133,6 +157,20 @@ public class MineTweakerMod {
     public void onLoad(FMLPreInitializationEvent ev) {
         MineTweakerConfig.file = new File(ev.getModConfigurationDirectory(), MODID + ".cfg");
         MineTweakerConfig.load();
+        fileLogger.setLevel(MineTweakerConfig.logLevel);
+        if (MineTweakerConfig.asyncLogging) {
+            fileLogger.setAsynchronous(MineTweakerConfig.logBufferSize, MineTweakerConfig.logOverflowPolicy);
+        }
+        if (MineTweakerConfig.scriptCache) {
+            StringBuilder environment = new StringBuilder(MCVERSION);
+            for (ModContainer mod : Loader.instance().getActiveModList()) {
+                environment.append(';').append(mod.getModId()).append('@').append(mod.getVersion());
+            }
+            scriptCache = new ScriptCache(new File("minetweaker-cache"), environment.toString());
+            MineTweakerAPI.tweaker.setScriptCache(scriptCache);
+        }
+        MineTweakerAPI.tweaker.setParallelParsing(MineTweakerConfig.parallelParsing);
+        MineTweakerAPI.tweaker.setStagedApply(MineTweakerConfig.stagedApply);
         MinecraftForge.EVENT_BUS.register(new ForgeEventHandler());
         FMLCommonHandler.instance().bus().register(new FMLEventHandler());
     }
@@ -153,6 +191,9 @@ public class MineTweakerMod {
         MineTweakerAPI.logInfo("MineTweaker: Building registry");
         ItemBracketHandler.rebuildItemRegistry();
         LiquidBracketHandler.rebuildLiquidRegistry();
+        if (scriptCache != null) {
+            scriptCache.setRegistryDigest(getRegistryDigest());
+        }
         MineTweakerAPI.logInfo("MineTweaker: Sucessfully built item registry");
         if (MineTweakerPlatformUtils.isClient()) {
             MineTweakerAPI.client = new MCClient();
@@ -192,4 +233,35 @@ public class MineTweakerMod {
         MineTweakerImplementationAPI.onServerStop();
         MineTweakerImplementationAPI.setScriptProvider(scriptsGlobal);
     }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    /**
+     * Calculates a digest of the item, fluid and ore names, as registered once all mods are loaded. Ore names added by
+     * scripts are not included, so that reloading the scripts does not change the digest.
+     */
+    @SuppressWarnings("unchecked")
+    private static String getRegistryDigest() {
+        MessageDigest digest = HashUtil.newSha256();
+        update(digest, "items", (Set<String>) Item.itemRegistry.getKeys());
+        update(digest, "fluids", FluidRegistry.getRegisteredFluids().keySet());
+        update(digest, "ores", Arrays.asList(OreDictionary.getOreNames()));
+        return HashUtil.toHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String registry, Iterable<String> names) {
+        Set<String> sorted = new TreeSet<>();
+        for (String name : names) {
+            if (name != null) sorted.add(name);
+        }
+
+        digest.update(registry.getBytes(StandardCharsets.UTF_8));
+        for (String name : sorted) {
+            digest.update((byte) '\n');
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
 }
@@ -16,4 +16,12 @@ public class MineTweakerRegistry {
     public static void getClasses(List<Class> classes) {
         // method stub, actual content is generated by build process
     }
+
+    public static void getClassTable(List<String[]> table) {
+        // method stub, actual content is generated by build process
+    }
+
+    public static void onRegister() {
+        // method stub, actual content is generated by build process
+    }
 }
@@ -8,7 +8,7 @@ import net.minecraftforge.fluids.Fluid;
 import net.minecraftforge.fluids.FluidRegistry;
 import net.minecraftforge.fluids.FluidStack;
 
-import minetweaker.IBracketHandler;
+import minetweaker.IPrefixedBracketHandler;
 import minetweaker.annotations.BracketHandler;
 import minetweaker.api.liquid.ILiquidStack;
 import minetweaker.mc1710.liquid.MCLiquidStack;
@@ -28,7 +28,7 @@ import stanhebben.zenscript.util.ZenPosition;
  * @author Stan
  */
 @BracketHandler
-public class LiquidBracketHandler implements IBracketHandler {
+public class LiquidBracketHandler implements IPrefixedBracketHandler {
 
     private static final Map<String, Fluid> fluidNames = new HashMap<String, Fluid>();
 
@@ -49,6 +49,11 @@ public class LiquidBracketHandler implements IBracketHandler {
         }
     }
 
+    @Override
+    public String getBracketPrefix() {
+        return "liquid";
+    }
+
     @Override
     public IZenSymbol resolve(IEnvironmentGlobal environment, List<Token> tokens) {
         if (tokens.size() > 2) {
@@ -67,9 +72,9 @@ public class LiquidBracketHandler implements IBracketHandler {
             valueBuilder.append(token.getValue());
         }
 
-        Fluid fluid = fluidNames.get(valueBuilder.toString());
-        if (fluid != null) {
-            return new LiquidReferenceSymbol(environment, valueBuilder.toString());
+        String fluidName = valueBuilder.toString();
+        if (fluidNames.containsKey(fluidName)) {
+            return new LiquidReferenceSymbol(environment, fluidName);
         }
 
         return null;
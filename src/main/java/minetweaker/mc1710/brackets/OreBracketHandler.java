@@ -9,7 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
-import minetweaker.IBracketHandler;
+import minetweaker.IPrefixedBracketHandler;
 import minetweaker.MineTweakerAPI;
 import minetweaker.annotations.BracketHandler;
 import minetweaker.api.oredict.IOreDictEntry;
@@ -30,7 +30,7 @@ import stanhebben.zenscript.util.ZenPosition;
  * @author Stan
  */
 @BracketHandler
-public class OreBracketHandler implements IBracketHandler {
+public class OreBracketHandler implements IPrefixedBracketHandler {
 
     public static IOreDictEntry getOre(String name) {
         return new MCOreDictEntry(name);
@@ -50,6 +50,11 @@ public class OreBracketHandler implements IBracketHandler {
         return result;
     }
 
+    @Override
+    public String getBracketPrefix() {
+        return "ore";
+    }
+
     @Override
     public IZenSymbol resolve(IEnvironmentGlobal environment, List<Token> tokens) {
         if (tokens.size() > 2) {
@@ -0,0 +1,144 @@
+package minetweaker.mc1710.client;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import minetweaker.api.formatting.IFormattedText;
+import minetweaker.api.item.IItemStack;
+import minetweaker.api.minecraft.MineTweakerMC;
+import minetweaker.api.tooltip.IngredientTooltips;
+import minetweaker.mc1710.formatting.IMCFormattedString;
+
+/**
+ * Cache of rendered script tooltips, keyed by item, damage, stack size and NBT data.
+ * <p>
+ * Tooltip events fire every frame for the hovered item, so matching the tooltip ingredients and rendering the tooltip
+ * strings again every time is wasteful. Cached results are dropped as soon as the tooltip generation of
+ * {@link IngredientTooltips} changes. Lookups that hit the cache do not allocate for stacks without NBT data.
+ */
+public class TooltipCache {
+
+    public static final TooltipCache INSTANCE = new TooltipCache();
+
+    private static final String[] NO_TOOLTIPS = new String[0];
+
+    /**
+     * Maximum number of cached item variants. The cache is cleared when it grows beyond this size.
+     */
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<Item, Entry> entries = new HashMap<>();
+    private int size = 0;
+    private int generation = IngredientTooltips.getGeneration();
+
+    private TooltipCache() {}
+
+    /**
+     * Returns the rendered tooltips for the given stack.
+     *
+     * @param stack item stack
+     * @param shift true for the shift tooltips, false for the normal tooltips
+     * @return rendered tooltips, never null; the array must not be modified
+     */
+    public synchronized String[] getTooltips(ItemStack stack, boolean shift) {
+        if (stack == null || stack.getItem() == null) return NO_TOOLTIPS;
+
+        int current = IngredientTooltips.getGeneration();
+        if (current != generation) {
+            entries.clear();
+            size = 0;
+            generation = current;
+        }
+
+        Entry entry = find(stack);
+        if (entry == null) {
+            entry = create(stack);
+            if (IngredientTooltips.getGeneration() != current) {
+                // tooltips changed while rendering; don't cache the result
+                return shift ? entry.shiftTooltips : entry.tooltips;
+            }
+
+            if (size >= MAX_ENTRIES) {
+                entries.clear();
+                size = 0;
+            }
+            entry.next = entries.get(stack.getItem());
+            entries.put(stack.getItem(), entry);
+            size++;
+        }
+
+        return shift ? entry.shiftTooltips : entry.tooltips;
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private Entry find(ItemStack stack) {
+        Entry entry = entries.get(stack.getItem());
+        if (entry == null) return null;
+
+        int damage = stack.getItemDamage();
+        int stackSize = stack.stackSize;
+        NBTTagCompound tag = stack.getTagCompound();
+        int tagHash = tag == null ? 0 : tag.hashCode();
+        for (; entry != null; entry = entry.next) {
+            if (entry.damage == damage && entry.stackSize == stackSize
+                    && entry.tagHash == tagHash
+                    && (tag == null ? entry.tag == null : tag.equals(entry.tag))) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static Entry create(ItemStack stack) {
+        IItemStack view = MineTweakerMC.getIItemStackView(stack);
+        NBTTagCompound tag = stack.getTagCompound();
+        return new Entry(
+                stack.getItemDamage(),
+                stack.stackSize,
+                tag == null ? null : (NBTTagCompound) tag.copy(),
+                render(IngredientTooltips.getTooltips(view)),
+                render(IngredientTooltips.getShiftTooltips(view)));
+    }
+
+    private static String[] render(List<IFormattedText> tooltips) {
+        if (tooltips.isEmpty()) return NO_TOOLTIPS;
+
+        String[] result = new String[tooltips.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((IMCFormattedString) tooltips.get(i)).getTooltipString();
+        }
+        return result;
+    }
+
+    // #############################
+    // ### Private inner classes ###
+    // #############################
+
+    private static class Entry {
+
+        private final int damage;
+        private final int stackSize;
+        private final int tagHash;
+        private final NBTTagCompound tag;
+        private final String[] tooltips;
+        private final String[] shiftTooltips;
+        private Entry next;
+
+        public Entry(int damage, int stackSize, NBTTagCompound tag, String[] tooltips, String[] shiftTooltips) {
+            this.damage = damage;
+            this.stackSize = stackSize;
+            this.tag = tag;
+            this.tagHash = tag == null ? 0 : tag.hashCode();
+            this.tooltips = tooltips;
+            this.shiftTooltips = shiftTooltips;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package minetweaker.mc1710.entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.EntityItem;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import minetweaker.api.item.IItemStack;
+import minetweaker.mc1710.item.MCItemStack;
+import stanhebben.zenscript.value.IntRange;
+
+/**
+ * Immutable drop changes of a single entity, compiled from its added, player-only and removed drops.
+ * <p>
+ * Added drops are kept as item stack templates, which are copied for every death. Removed drops are keyed by item, so
+ * that each drop only has to be matched against the removals for its own item. Removals that are not backed by a plain
+ * item stack are matched against every drop.
+ */
+public class MCDropPlan {
+
+    private static final IItemStack[] NO_REMOVALS = new IItemStack[0];
+
+    private final Drop[] drops;
+    private final Drop[] playerOnlyDrops;
+    private final Map<Item, IItemStack[]> removalsByItem;
+    private final IItemStack[] unkeyedRemovals;
+
+    public MCDropPlan(Map<IItemStack, IntRange> drops, Map<IItemStack, IntRange> playerOnlyDrops,
+            List<IItemStack> removals) {
+        this.drops = compile(drops);
+        this.playerOnlyDrops = compile(playerOnlyDrops);
+
+        Map<Item, List<IItemStack>> byItem = new HashMap<>();
+        List<IItemStack> unkeyed = new ArrayList<>();
+        for (IItemStack removal : removals) {
+            Item item = getKeyItem(removal);
+            if (item == null) {
+                unkeyed.add(removal);
+            } else {
+                byItem.computeIfAbsent(item, k -> new ArrayList<>()).add(removal);
+            }
+        }
+
+        removalsByItem = new HashMap<>();
+        for (Map.Entry<Item, List<IItemStack>> entry : byItem.entrySet()) {
+            removalsByItem.put(entry.getKey(), entry.getValue().toArray(NO_REMOVALS));
+        }
+        unkeyedRemovals = unkeyed.toArray(NO_REMOVALS);
+    }
+
+    /**
+     * Applies the drop changes to the drops of a dying entity.
+     *
+     * @param entity         dying entity
+     * @param killedByPlayer true if the entity was killed by a player
+     * @param result         drops of the entity, modified in place
+     */
+    public void apply(Entity entity, boolean killedByPlayer, List<EntityItem> result) {
+        addDrops(drops, entity, result);
+        if (killedByPlayer) {
+            addDrops(playerOnlyDrops, entity, result);
+        }
+
+        if (removalsByItem.isEmpty() && unkeyedRemovals.length == 0) return;
+
+        for (Iterator<EntityItem> iterator = result.iterator(); iterator.hasNext();) {
+            ItemStack stack = iterator.next().getEntityItem();
+            if (stack == null) continue;
+
+            IItemStack[] candidates = removalsByItem.get(stack.getItem());
+            if (candidates == null && unkeyedRemovals.length == 0) continue;
+
+            IItemStack view = MCItemStack.view(stack);
+            if ((candidates != null && matchesAny(candidates, view)) || matchesAny(unkeyedRemovals, view)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private static void addDrops(Drop[] drops, Entity entity, List<EntityItem> result) {
+        for (Drop drop : drops) {
+            result.add(
+                    new EntityItem(
+                            entity.worldObj,
+                            entity.posX + 0.5,
+                            entity.posY + 0.5,
+                            entity.posZ + 0.5,
+                            drop.create()));
+        }
+    }
+
+    private static boolean matchesAny(IItemStack[] removals, IItemStack stack) {
+        for (IItemStack removal : removals) {
+            if (removal.matches(stack)) return true;
+        }
+        return false;
+    }
+
+    private static Drop[] compile(Map<IItemStack, IntRange> drops) {
+        Drop[] result = new Drop[drops.size()];
+        int i = 0;
+        for (Map.Entry<IItemStack, IntRange> entry : drops.entrySet()) {
+            result[i++] = new Drop(((ItemStack) entry.getKey().getInternal()).copy(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Item stack removals only match drops of their own item.
+     */
+    private static Item getKeyItem(IItemStack removal) {
+        if (!(removal instanceof MCItemStack) || !(removal.getInternal() instanceof ItemStack)) return null;
+        return ((ItemStack) removal.getInternal()).getItem();
+    }
+
+    private static class Drop {
+
+        private final ItemStack template;
+        private final IntRange amount;
+        private final boolean fixed;
+
+        public Drop(ItemStack template, IntRange amount) {
+            this.template = template;
+            this.amount = amount;
+            this.fixed = amount.getMin() == 0 && amount.getMax() == 0;
+        }
+
+        public ItemStack create() {
+            ItemStack result = template.copy();
+            if (!fixed) {
+                result.stackSize = amount.getRandom();
+            }
+            return result;
+        }
+    }
+}
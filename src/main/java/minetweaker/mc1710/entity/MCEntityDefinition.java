@@ -24,6 +24,10 @@ public class MCEntityDefinition implements IEntityDefinition {
     private final Map<IItemStack, IntRange> dropsToAddPlayerOnly = new HashMap<IItemStack, IntRange>();
     private final List<IItemStack> dropsToRemove = new ArrayList<IItemStack>();
 
+    private static volatile boolean anyDropChanges = false;
+    private volatile boolean dropChanges = false;
+    private volatile MCDropPlan dropPlan = null;
+
     public MCEntityDefinition(EntityRegistry.EntityRegistration registration) {
         this.registration = registration;
     }
@@ -39,32 +43,85 @@ public class MCEntityDefinition implements IEntityDefinition {
     }
 
     @Override
-    public void addDrop(IItemStack stack, int min, int max) {
+    public synchronized void addDrop(IItemStack stack, int min, int max) {
         dropsToAdd.put(stack, new IntRange(min, max));
+        markDropChanges();
     }
 
     @Override
-    public void addPlayerOnlyDrop(IItemStack stack, int min, int max) {
+    public synchronized void addPlayerOnlyDrop(IItemStack stack, int min, int max) {
         dropsToAddPlayerOnly.put(stack, new IntRange(min, max));
+        markDropChanges();
     }
 
     @Override
-    public void removeDrop(IItemStack stack) {
+    public synchronized void removeDrop(IItemStack stack) {
         dropsToRemove.add(stack);
+        markDropChanges();
+    }
+
+    /**
+     * Checks if drops were added to or removed from this entity.
+     *
+     * @return true if the drops of this entity have been changed
+     */
+    public boolean hasDropChanges() {
+        return dropChanges;
+    }
+
+    /**
+     * Returns the compiled drop changes of this entity. The plan is compiled when scripts have finished loading, or on
+     * first use after the drops have been changed.
+     *
+     * @return drop plan
+     */
+    public MCDropPlan getDropPlan() {
+        MCDropPlan plan = dropPlan;
+        return plan == null ? freezeDropPlan() : plan;
+    }
+
+    /**
+     * Compiles the current drop changes into a drop plan.
+     *
+     * @return compiled drop plan
+     */
+    public synchronized MCDropPlan freezeDropPlan() {
+        MCDropPlan plan = new MCDropPlan(dropsToAdd, dropsToAddPlayerOnly, dropsToRemove);
+        dropPlan = plan;
+        return plan;
+    }
+
+    /**
+     * Checks if the drops of any entity have been changed.
+     *
+     * @return true if any entity has drop changes
+     */
+    public static boolean hasAnyDropChanges() {
+        return anyDropChanges;
     }
 
     @Override
     public Map<IItemStack, IntRange> getDropsToAdd() {
-        return dropsToAdd;
+        return Collections.unmodifiableMap(dropsToAdd);
     }
 
     @Override
     public Map<IItemStack, IntRange> getDropsToAddPlayerOnly() {
-        return dropsToAddPlayerOnly;
+        return Collections.unmodifiableMap(dropsToAddPlayerOnly);
     }
 
     @Override
     public List<IItemStack> getDropsToRemove() {
-        return dropsToRemove;
+        return Collections.unmodifiableList(dropsToRemove);
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void markDropChanges() {
+        dropPlan = null;
+        dropChanges = true;
+        anyDropChanges = true;
     }
 }
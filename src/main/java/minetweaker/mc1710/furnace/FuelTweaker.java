@@ -9,6 +9,8 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
@@ -18,13 +20,18 @@ import cpw.mods.fml.common.registry.GameRegistry;
 import minetweaker.MineTweakerAPI;
 import minetweaker.api.item.IItemStack;
 import minetweaker.api.minecraft.MineTweakerMC;
+import minetweaker.mc1710.item.MCItemStack;
 
 public class FuelTweaker {
 
     public static final FuelTweaker INSTANCE = new FuelTweaker();
 
+    private static final int NO_OVERRIDE = Integer.MIN_VALUE;
+
     private List<IFuelHandler> original;
     private final HashMap<Item, List<SetFuelPattern>> quickList = new HashMap<Item, List<SetFuelPattern>>();
+    private volatile Map<Item, ItemFuel> table = new HashMap<Item, ItemFuel>();
+    private final ConcurrentHashMap<Item, Map<Integer, Integer>> chained = new ConcurrentHashMap<>();
 
     private FuelTweaker() {}
 
@@ -63,6 +70,7 @@ public class FuelTweaker {
             }
             quickList.get(mcItem).add(pattern);
         }
+        compile();
     }
 
     public void removeFuelPattern(SetFuelPattern pattern) {
@@ -73,27 +81,148 @@ public class FuelTweaker {
                 quickList.get(mcItem).remove(pattern);
             }
         }
+        compile();
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    /**
+     * Rebuilds the lookup table from the patterns. The table is replaced as a whole, since it is read by the client and
+     * server threads.
+     */
+    private void compile() {
+        Map<Item, ItemFuel> compiled = new HashMap<Item, ItemFuel>();
+        for (Map.Entry<Item, List<SetFuelPattern>> entry : quickList.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                compiled.put(entry.getKey(), new ItemFuel(entry.getValue()));
+            }
+        }
+        table = compiled;
+        chained.clear();
+    }
+
+    /**
+     * Returns the burn time provided by the original fuel handlers. Results for stacks without NBT data are cached by
+     * item and damage.
+     */
+    private int getChainedBurnTime(ItemStack fuel) {
+        if (fuel.stackTagCompound != null) return computeChainedBurnTime(fuel);
+
+        Map<Integer, Integer> byDamage = chained.get(fuel.getItem());
+        if (byDamage == null) {
+            byDamage = new ConcurrentHashMap<Integer, Integer>();
+            Map<Integer, Integer> existing = chained.putIfAbsent(fuel.getItem(), byDamage);
+            if (existing != null) byDamage = existing;
+        }
+
+        Integer result = byDamage.get(fuel.getItemDamage());
+        if (result == null) {
+            result = computeChainedBurnTime(fuel);
+            byDamage.put(fuel.getItemDamage(), result);
+        }
+        return result;
     }
 
+    private int computeChainedBurnTime(ItemStack fuel) {
+        int max = 0;
+        for (IFuelHandler handler : original) {
+            max = Math.max(max, handler.getBurnTime(fuel));
+        }
+        return max;
+    }
+
+    /**
+     * Returns true if the pattern only depends on the item, damage and size of the fuel stack.
+     */
+    private static boolean isPlain(SetFuelPattern pattern) {
+        if (!(pattern.getPattern() instanceof MCItemStack)) return false;
+
+        Object internal = pattern.getPattern().getInternal();
+        return internal instanceof ItemStack && ((ItemStack) internal).stackSize <= 1;
+    }
+
+    // #############################
+    // ### Private inner classes ###
+    // #############################
+
     private class OverridingFuelHandler implements IFuelHandler {
 
         @Override
         public int getBurnTime(ItemStack fuel) {
-            if (quickList.containsKey(fuel.getItem())) {
-                IItemStack stack = MineTweakerMC.getIItemStack(fuel);
+            if (fuel == null || fuel.getItem() == null) return 0;
+
+            ItemFuel itemFuel = table.get(fuel.getItem());
+            if (itemFuel != null) {
+                int value = itemFuel.getBurnTime(fuel);
+                if (value != NO_OVERRIDE) return value;
+            }
+
+            return getChainedBurnTime(fuel);
+        }
+    }
+
+    /**
+     * Fuel patterns of a single item, in the order they were added. Plain item patterns are resolved once per damage
+     * value; other patterns (ore dictionary entries, conditions) are matched on every lookup, but only if they come
+     * before the first matching plain pattern.
+     */
+    private static class ItemFuel {
+
+        private final SetFuelPattern[] patterns;
+        private final int[] complex;
+        private final Map<Integer, Integer> plainMatches = new ConcurrentHashMap<Integer, Integer>();
+
+        public ItemFuel(List<SetFuelPattern> patterns) {
+            this.patterns = patterns.toArray(new SetFuelPattern[patterns.size()]);
+
+            List<Integer> complexIndices = new ArrayList<Integer>();
+            for (int i = 0; i < this.patterns.length; i++) {
+                if (!isPlain(this.patterns[i])) complexIndices.add(i);
+            }
+            complex = new int[complexIndices.size()];
+            for (int i = 0; i < complex.length; i++) {
+                complex[i] = complexIndices.get(i);
+            }
+        }
 
-                for (SetFuelPattern override : quickList.get(fuel.getItem())) {
-                    if (override.getPattern().matches(stack)) {
-                        return override.getValue();
-                    }
+        public int getBurnTime(ItemStack fuel) {
+            IItemStack view = null;
+
+            // plain patterns only depend on the damage value for stacks of at least one item
+            int plain = Integer.MAX_VALUE;
+            if (fuel.stackSize >= 1) {
+                Integer match = plainMatches.get(fuel.getItemDamage());
+                if (match == null) {
+                    view = MCItemStack.view(fuel);
+                    match = findPlain(view);
+                    plainMatches.put(fuel.getItemDamage(), match);
                 }
+                plain = match;
+            } else {
+                view = MCItemStack.view(fuel);
+                for (SetFuelPattern pattern : patterns) {
+                    if (pattern.getPattern().matches(view)) return pattern.getValue();
+                }
+                return NO_OVERRIDE;
             }
 
-            int max = 0;
-            for (IFuelHandler handler : original) {
-                max = Math.max(max, handler.getBurnTime(fuel));
+            for (int index : complex) {
+                if (index > plain) break;
+
+                if (view == null) view = MCItemStack.view(fuel);
+                if (patterns[index].getPattern().matches(view)) return patterns[index].getValue();
+            }
+
+            return plain == Integer.MAX_VALUE ? NO_OVERRIDE : patterns[plain].getValue();
+        }
+
+        private int findPlain(IItemStack view) {
+            for (int i = 0; i < patterns.length; i++) {
+                if (isPlain(patterns[i]) && patterns[i].getPattern().matches(view)) return i;
             }
-            return max;
+            return Integer.MAX_VALUE;
         }
     }
 }
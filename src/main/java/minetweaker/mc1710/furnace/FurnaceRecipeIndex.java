@@ -0,0 +1,153 @@
+package minetweaker.mc1710.furnace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.FurnaceRecipes;
+
+import minetweaker.api.item.IIngredient;
+import minetweaker.api.item.IItemStack;
+import minetweaker.api.liquid.ILiquidStack;
+
+/**
+ * Index over the furnace smelting list, keyed by output item.
+ * <p>
+ * Lookups return the input stacks of all recipes with an output of the given items, so callers still have to match
+ * the result. The index is updated by the furnace actions; other changes to the smelting list are detected by
+ * comparing the indexed size with the list size, and cause a rebuild on the next lookup. Not thread-safe; lookups and
+ * updates must happen on the thread applying the scripts.
+ */
+public class FurnaceRecipeIndex {
+
+    private final Map<Item, Set<ItemStack>> byOutput = new HashMap<>();
+
+    private boolean built = false;
+    private int indexedSize = 0;
+
+    /**
+     * Registers recipes that have just been added to the smelting list.
+     *
+     * @param inputs   added recipe inputs
+     * @param output   recipe output
+     * @param previous number of entries in the smelting list before adding
+     */
+    public void addAll(ItemStack[] inputs, ItemStack output, int previous) {
+        if (built && indexedSize == previous && previous + inputs.length == getSmeltingList().size()) {
+            for (ItemStack input : inputs) {
+                insert(input, output);
+            }
+            indexedSize += inputs.length;
+        } else {
+            built = false;
+        }
+    }
+
+    /**
+     * Unregisters recipes that have just been removed from the smelting list.
+     *
+     * @param inputs   removed recipe inputs
+     * @param outputs  removed recipe outputs, in the same order
+     * @param previous number of entries in the smelting list before removing
+     */
+    public void removeAll(List<ItemStack> inputs, List<ItemStack> outputs, int previous) {
+        if (built && indexedSize == previous && previous - inputs.size() == getSmeltingList().size()) {
+            for (int i = 0; i < inputs.size(); i++) {
+                Item item = outputs.get(i) == null ? null : outputs.get(i).getItem();
+                Set<ItemStack> bucket = item == null ? null : byOutput.get(item);
+                if (bucket != null) {
+                    bucket.remove(inputs.get(i));
+                    if (bucket.isEmpty()) byOutput.remove(item);
+                }
+            }
+            indexedSize -= inputs.size();
+        } else {
+            built = false;
+        }
+    }
+
+    /**
+     * Forces a rebuild on the next lookup.
+     */
+    public void invalidate() {
+        built = false;
+    }
+
+    /**
+     * Finds the inputs of all recipes whose output could match the given ingredient.
+     *
+     * @param output output ingredient
+     * @return candidate recipe inputs, or null if the ingredient cannot be looked up in the index
+     */
+    public Set<ItemStack> findByOutput(IIngredient output) {
+        List<Item> items = getItems(output);
+        if (items == null) return null;
+
+        ensureBuilt();
+
+        Set<ItemStack> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Item item : items) {
+            Set<ItemStack> bucket = byOutput.get(item);
+            if (bucket != null) result.addAll(bucket);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the output items of an ingredient, or null if the ingredient cannot be keyed.
+     *
+     * @param ingredient ingredient
+     * @return output items, or null
+     */
+    static List<Item> getItems(IIngredient ingredient) {
+        if (ingredient == null) return null;
+
+        List<IItemStack> items = ingredient.getItems();
+        List<ILiquidStack> liquids = ingredient.getLiquids();
+        if (items == null || liquids == null || !liquids.isEmpty()) return null;
+
+        List<Item> result = new ArrayList<>(items.size());
+        for (IItemStack item : items) {
+            Object internal = item.getInternal();
+            if (!(internal instanceof ItemStack) || ((ItemStack) internal).getItem() == null) return null;
+
+            result.add(((ItemStack) internal).getItem());
+        }
+        return result;
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void ensureBuilt() {
+        Map<ItemStack, ItemStack> smeltingList = getSmeltingList();
+        if (built && indexedSize == smeltingList.size()) return;
+
+        byOutput.clear();
+        for (Map.Entry<ItemStack, ItemStack> entry : smeltingList.entrySet()) {
+            insert(entry.getKey(), entry.getValue());
+        }
+
+        indexedSize = smeltingList.size();
+        built = true;
+    }
+
+    private void insert(ItemStack input, ItemStack output) {
+        if (output == null || output.getItem() == null) return;
+
+        byOutput.computeIfAbsent(output.getItem(), k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .add(input);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<ItemStack, ItemStack> getSmeltingList() {
+        return FurnaceRecipes.smelting().getSmeltingList();
+    }
+}
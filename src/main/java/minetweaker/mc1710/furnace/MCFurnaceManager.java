@@ -9,14 +9,21 @@ import static minetweaker.api.minecraft.MineTweakerMC.getItemStack;
 import static minetweaker.api.minecraft.MineTweakerMC.getItemStacks;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.FurnaceRecipes;
 
 import cpw.mods.fml.common.registry.GameRegistry;
+import minetweaker.IBatchableAction;
 import minetweaker.IUndoableAction;
 import minetweaker.MineTweakerAPI;
 import minetweaker.api.item.IIngredient;
@@ -25,12 +32,24 @@ import minetweaker.api.recipes.FurnaceRecipe;
 import minetweaker.api.recipes.IFurnaceManager;
 import minetweaker.api.recipes.IFurnaceRecipe;
 import minetweaker.mc1710.item.MCItemStack;
+import minetweaker.mc1710.util.MineTweakerHacks;
 
 /**
  * @author Stan
  */
 public class MCFurnaceManager implements IFurnaceManager {
 
+    /**
+     * Output index over the smelting list, kept up to date by the furnace actions.
+     */
+    public static final FurnaceRecipeIndex recipeIndex = new FurnaceRecipeIndex();
+
+    /**
+     * Batch key of all actions changing the smelting list. Additions and removals share it, so that staged actions are
+     * applied in the order they were issued.
+     */
+    private static final Object SMELTING_BATCH = new Object();
+
     public MCFurnaceManager() {
 
     }
@@ -39,23 +58,7 @@ public class MCFurnaceManager implements IFurnaceManager {
     public void remove(IIngredient output, IIngredient input) {
         if (output == null) throw new IllegalArgumentException("output cannot be null");
 
-        Map<ItemStack, ItemStack> smeltingList = FurnaceRecipes.smelting().getSmeltingList();
-
-        List<ItemStack> toRemove = new ArrayList<ItemStack>();
-        List<ItemStack> toRemoveValues = new ArrayList<ItemStack>();
-        for (Map.Entry<ItemStack, ItemStack> entry : smeltingList.entrySet()) {
-            if (output.matches(new MCItemStack(entry.getValue()))
-                    && (input == null || input.matches(new MCItemStack(entry.getKey())))) {
-                toRemove.add(entry.getKey());
-                toRemoveValues.add(entry.getValue());
-            }
-        }
-
-        if (toRemove.isEmpty()) {
-            MineTweakerAPI.logWarning("No furnace recipes for " + output.toString());
-        } else {
-            MineTweakerAPI.apply(new RemoveAction(toRemove, toRemoveValues));
-        }
+        MineTweakerAPI.apply(new RemoveAction(output, input));
     }
 
     @Override
@@ -94,24 +97,137 @@ public class MCFurnaceManager implements IFurnaceManager {
         return retList;
     }
 
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    @SuppressWarnings("unchecked")
+    private static Map<ItemStack, ItemStack> getSmeltingList() {
+        return FurnaceRecipes.smelting().getSmeltingList();
+    }
+
+    private static void applySmeltingBatch(List<IBatchableAction> batch) {
+        // consecutive actions of the same kind are applied together, each run after the previous one
+        int start = 0;
+        for (int i = 1; i <= batch.size(); i++) {
+            if (i < batch.size() && batch.get(i).getClass() == batch.get(start).getClass()) continue;
+
+            List<IBatchableAction> run = batch.subList(start, i);
+            if (batch.get(start) instanceof RemoveAction) {
+                RemoveAction.applyRemovals(run);
+            } else {
+                AddRecipeAction.applyAdditions(run);
+            }
+            start = i;
+        }
+    }
+
     // ######################
     // ### Action classes ###
     // ######################
 
-    private static class RemoveAction implements IUndoableAction {
+    private static class RemoveAction implements IBatchableAction {
 
-        private final List<ItemStack> items;
-        private final List<ItemStack> values;
+        private final IIngredient output;
+        private final IIngredient input;
+        private final List<ItemStack> items = new ArrayList<ItemStack>();
+        private final List<ItemStack> values = new ArrayList<ItemStack>();
 
-        public RemoveAction(List<ItemStack> items, List<ItemStack> values) {
-            this.items = items;
-            this.values = values;
+        public RemoveAction(IIngredient output, IIngredient input) {
+            this.output = output;
+            this.input = input;
         }
 
         @Override
         public void apply() {
+            Map<ItemStack, ItemStack> smeltingList = getSmeltingList();
+            Set<ItemStack> candidates = recipeIndex.findByOutput(output);
+
+            items.clear();
+            values.clear();
+            if (candidates == null) {
+                for (Map.Entry<ItemStack, ItemStack> entry : smeltingList.entrySet()) {
+                    if (matches(entry.getKey(), entry.getValue())) {
+                        items.add(entry.getKey());
+                        values.add(entry.getValue());
+                    }
+                }
+            } else {
+                for (ItemStack item : candidates) {
+                    ItemStack value = smeltingList.get(item);
+                    if (value != null && matches(item, value)) {
+                        items.add(item);
+                        values.add(value);
+                    }
+                }
+            }
+
+            int sizeBefore = smeltingList.size();
             for (ItemStack item : items) {
-                FurnaceRecipes.smelting().getSmeltingList().remove(item);
+                smeltingList.remove(item);
+            }
+            recipeIndex.removeAll(items, values, sizeBefore);
+            warnIfEmpty();
+        }
+
+        @Override
+        public Object getBatchKey() {
+            return SMELTING_BATCH;
+        }
+
+        @Override
+        public void applyBatch(List<IBatchableAction> batch) {
+            applySmeltingBatch(batch);
+        }
+
+        private static void applyRemovals(List<IBatchableAction> batch) {
+            // removals are grouped by output item, so that each recipe is only matched against the removals that can
+            // remove it; a recipe is claimed by the first matching removal, as if they were applied one by one
+            Map<Item, List<RemoveAction>> byItem = new HashMap<Item, List<RemoveAction>>();
+            List<RemoveAction> unkeyed = new ArrayList<RemoveAction>();
+            Map<RemoveAction, Integer> order = new IdentityHashMap<RemoveAction, Integer>();
+            for (IBatchableAction action : batch) {
+                RemoveAction removal = (RemoveAction) action;
+                removal.items.clear();
+                removal.values.clear();
+                order.put(removal, order.size());
+
+                List<Item> keys = FurnaceRecipeIndex.getItems(removal.output);
+                if (keys == null) {
+                    unkeyed.add(removal);
+                } else {
+                    for (Item key : keys) {
+                        List<RemoveAction> bucket = byItem.get(key);
+                        if (bucket == null) byItem.put(key, bucket = new ArrayList<RemoveAction>());
+                        if (bucket.isEmpty() || bucket.get(bucket.size() - 1) != removal) bucket.add(removal);
+                    }
+                }
+            }
+
+            Map<ItemStack, ItemStack> smeltingList = getSmeltingList();
+            int sizeBefore = smeltingList.size();
+            List<ItemStack> removedItems = new ArrayList<ItemStack>();
+            List<ItemStack> removedValues = new ArrayList<ItemStack>();
+            for (Iterator<Map.Entry<ItemStack, ItemStack>> iterator = smeltingList.entrySet().iterator(); iterator
+                    .hasNext();) {
+                Map.Entry<ItemStack, ItemStack> entry = iterator.next();
+                ItemStack value = entry.getValue();
+                List<RemoveAction> bucket = value == null ? null : byItem.get(value.getItem());
+
+                RemoveAction first = firstMatch(bucket, entry.getKey(), value, order, null);
+                first = firstMatch(unkeyed, entry.getKey(), value, order, first);
+                if (first == null) continue;
+
+                first.items.add(entry.getKey());
+                first.values.add(value);
+                removedItems.add(entry.getKey());
+                removedValues.add(value);
+                iterator.remove();
+            }
+            recipeIndex.removeAll(removedItems, removedValues, sizeBefore);
+
+            for (IBatchableAction action : batch) {
+                ((RemoveAction) action).warnIfEmpty();
             }
         }
 
@@ -122,28 +238,51 @@ public class MCFurnaceManager implements IFurnaceManager {
 
         @Override
         public void undo() {
+            Map<ItemStack, ItemStack> smeltingList = getSmeltingList();
             for (int i = 0; i < items.size(); i++) {
-                FurnaceRecipes.smelting().getSmeltingList().put(items.get(i), values.get(i));
+                smeltingList.put(items.get(i), values.get(i));
             }
+            recipeIndex.invalidate();
         }
 
         @Override
         public String describe() {
-            return "Removing " + items.size() + " furnace recipes";
+            return "Removing furnace recipes for " + output;
         }
 
         @Override
         public String describeUndo() {
-            return "Restoring " + items.size() + " furnace recipes";
+            return "Restoring " + items.size() + " furnace recipes for " + output;
         }
 
         @Override
         public Object getOverrideKey() {
             return null;
         }
+
+        private boolean matches(ItemStack item, ItemStack value) {
+            return output.matches(MCItemStack.view(value)) && (input == null || input.matches(MCItemStack.view(item)));
+        }
+
+        private void warnIfEmpty() {
+            if (items.isEmpty()) {
+                MineTweakerAPI.logWarning("No furnace recipes for " + output.toString());
+            }
+        }
+
+        private static RemoveAction firstMatch(List<RemoveAction> removals, ItemStack item, ItemStack value,
+                Map<RemoveAction, Integer> order, RemoveAction current) {
+            if (removals == null) return current;
+
+            for (RemoveAction removal : removals) {
+                if (current != null && order.get(removal) >= order.get(current)) break;
+                if (removal.matches(item, value)) return removal;
+            }
+            return current;
+        }
     }
 
-    private static class AddRecipeAction implements IUndoableAction {
+    private static class AddRecipeAction implements IBatchableAction {
 
         private final IIngredient ingredient;
         private final ItemStack[] input;
@@ -159,9 +298,45 @@ public class MCFurnaceManager implements IFurnaceManager {
 
         @Override
         public void apply() {
+            int sizeBefore = getSmeltingList().size();
             for (ItemStack inputStack : input) {
                 FurnaceRecipes.smelting().func_151394_a(inputStack, output, (float) xp);
             }
+            recipeIndex.addAll(input, output, sizeBefore);
+        }
+
+        @Override
+        public Object getBatchKey() {
+            return SMELTING_BATCH;
+        }
+
+        @Override
+        public void applyBatch(List<IBatchableAction> batch) {
+            applySmeltingBatch(batch);
+        }
+
+        private static void applyAdditions(List<IBatchableAction> batch) {
+            Map<ItemStack, Float> experience = MineTweakerHacks.getFurnaceExperience();
+            if (experience == null) {
+                for (IBatchableAction action : batch) {
+                    action.apply();
+                }
+                return;
+            }
+
+            // same as adding the recipes one by one, but with a single update of each map
+            Map<ItemStack, ItemStack> recipes = new LinkedHashMap<>();
+            Map<ItemStack, Float> recipeExperience = new LinkedHashMap<>();
+            for (IBatchableAction action : batch) {
+                AddRecipeAction recipe = (AddRecipeAction) action;
+                for (ItemStack inputStack : recipe.input) {
+                    recipes.put(inputStack, recipe.output);
+                    recipeExperience.put(recipe.output, (float) recipe.xp);
+                }
+            }
+            getSmeltingList().putAll(recipes);
+            experience.putAll(recipeExperience);
+            recipeIndex.invalidate();
         }
 
         @Override
@@ -171,9 +346,14 @@ public class MCFurnaceManager implements IFurnaceManager {
 
         @Override
         public void undo() {
+            Map<ItemStack, ItemStack> smeltingList = getSmeltingList();
+            int sizeBefore = smeltingList.size();
+            List<ItemStack> removedValues = new ArrayList<ItemStack>();
             for (ItemStack inputStack : input) {
-                FurnaceRecipes.smelting().getSmeltingList().remove(inputStack);
+                smeltingList.remove(inputStack);
+                removedValues.add(output);
             }
+            recipeIndex.removeAll(Arrays.asList(input), removedValues, sizeBefore);
         }
 
         @Override
@@ -6,12 +6,15 @@
 package minetweaker.mc1710.game;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 import net.minecraft.block.Block;
 import net.minecraft.client.Minecraft;
+import net.minecraft.entity.Entity;
 import net.minecraft.item.Item;
 import net.minecraft.util.*;
 import net.minecraftforge.fluids.Fluid;
@@ -23,6 +26,7 @@ import cpw.mods.fml.common.registry.EntityRegistry;
 import cpw.mods.fml.common.registry.LanguageRegistry;
 import minetweaker.IUndoableAction;
 import minetweaker.MineTweakerAPI;
+import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.api.block.IBlockDefinition;
 import minetweaker.api.entity.IEntityDefinition;
 import minetweaker.api.event.*;
@@ -49,8 +53,13 @@ public class MCGame implements IGame {
 
     private boolean locked = false;
     private static final List<IEntityDefinition> ENTITY_DEFINITIONS = new ArrayList<IEntityDefinition>();
+    private static final Map<String, MCEntityDefinition> ENTITIES_BY_NAME = new HashMap<>();
+    private static final Map<Class<?>, MCEntityDefinition> ENTITIES_BY_CLASS = new HashMap<>();
+    private static int indexedRegistrations = -1;
 
-    private MCGame() {}
+    private MCGame() {
+        MineTweakerImplementationAPI.onPostReload(event -> freezeDropPlans());
+    }
 
     @Override
     public List<IItemDefinition> getItems() {
@@ -93,44 +102,75 @@ public class MCGame implements IGame {
 
     @Override
     public List<IEntityDefinition> getEntities() {
-        final Set<EntityRegistry.EntityRegistration> values = MineTweakerHacks.getEntityClassRegistrations().values();
-        if (Iterables.size(values) != ENTITY_DEFINITIONS.size()) {
-            ENTITY_DEFINITIONS.clear();
-            for (EntityRegistry.EntityRegistration entry : values) {
-                ENTITY_DEFINITIONS.add(new MCEntityDefinition(entry));
-            }
-        }
+        updateEntities();
         return ENTITY_DEFINITIONS;
     }
 
     @Override
     public IEntityDefinition getEntity(String entityName) {
-        for (IEntityDefinition ent : getEntities()) {
-            if (ent.getName().equalsIgnoreCase(entityName)) {
-                return ent;
-            }
-        }
-        boolean needsReloading = false;
-        for (EntityRegistry.EntityRegistration res : MineTweakerHacks.getEntityClassRegistrations().values()) {
-            if (res.getEntityName().equalsIgnoreCase(entityName)) {
-                needsReloading = true;
-                break;
-            }
-        }
-        if (needsReloading) {
-            ENTITY_DEFINITIONS.clear();
-            for (EntityRegistry.EntityRegistration entry : MineTweakerHacks.getEntityClassRegistrations().values()) {
-                ENTITY_DEFINITIONS.add(new MCEntityDefinition(entry));
+        if (entityName == null) return null;
+
+        updateEntities();
+        return ENTITIES_BY_NAME.get(entityName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the entity definition for the given entity class.
+     *
+     * @param entityClass entity class
+     * @return entity definition, or null if the class is not registered
+     */
+    public MCEntityDefinition getEntity(Class<?> entityClass) {
+        updateEntities();
+        return ENTITIES_BY_CLASS.get(entityClass);
+    }
+
+    /**
+     * Compiles the drop changes made by the scripts, so that they are not compiled on the first death.
+     */
+    private static void freezeDropPlans() {
+        updateEntities();
+        for (MCEntityDefinition definition : ENTITIES_BY_CLASS.values()) {
+            if (definition.hasDropChanges()) {
+                definition.freezeDropPlan();
             }
         }
+    }
 
-        for (IEntityDefinition entity : getEntities()) {
-            if (entity.getName().equalsIgnoreCase(entityName)) {
-                return entity;
+    /**
+     * Rebuilds the entity indices if entities were registered since the last update. Existing definitions are kept, so
+     * that drop changes made by scripts are not lost.
+     */
+    private static void updateEntities() {
+        BiMap<Class<? extends Entity>, EntityRegistry.EntityRegistration> registrations = MineTweakerHacks
+                .getEntityClassRegistrations();
+        int size = registrations == null ? 0 : registrations.size();
+        if (size == indexedRegistrations) return;
+
+        Map<Class<?>, MCEntityDefinition> previous = new HashMap<>(ENTITIES_BY_CLASS);
+        ENTITY_DEFINITIONS.clear();
+        ENTITIES_BY_NAME.clear();
+        ENTITIES_BY_CLASS.clear();
+
+        if (registrations != null) {
+            for (EntityRegistry.EntityRegistration entry : registrations.values()) {
+                MCEntityDefinition definition = previous.get(entry.getEntityClass());
+                if (definition == null || !definition.getName().equals(entry.getEntityName())) {
+                    definition = new MCEntityDefinition(entry);
+                }
+
+                ENTITY_DEFINITIONS.add(definition);
+                ENTITIES_BY_CLASS.put(entry.getEntityClass(), definition);
+
+                // the first registration wins, as with the linear search this index replaces
+                String name = entry.getEntityName().toLowerCase(Locale.ROOT);
+                if (!ENTITIES_BY_NAME.containsKey(name)) {
+                    ENTITIES_BY_NAME.put(name, definition);
+                }
             }
         }
-        return null;
 
+        indexedRegistrations = size;
     }
 
     @Override
@@ -0,0 +1,54 @@
+package minetweaker.mc1710.item;
+
+import java.util.List;
+
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import minetweaker.api.item.IIngredient;
+import minetweaker.api.item.IIngredientFilter;
+import minetweaker.api.item.IItemStack;
+
+/**
+ * Ingredient filter for ingredients backed by a single item stack. Mirrors the item and damage checks of
+ * {@link MCItemStack#matches(IItemStack)}.
+ */
+public class MCIngredientFilter implements IIngredientFilter {
+
+    private final ItemStack pattern;
+    private final boolean anyDamage;
+
+    private MCIngredientFilter(ItemStack pattern) {
+        this.pattern = pattern;
+        this.anyDamage = pattern.getItemDamage() == OreDictionary.WILDCARD_VALUE || !pattern.getHasSubtypes();
+    }
+
+    /**
+     * Compiles a filter for the given ingredient. Only ingredients backed by a single item stack are compiled; ore
+     * dictionary entries and other ingredients can change their contents and are always passed on to the ingredient.
+     *
+     * @param ingredient ingredient to compile
+     * @return ingredient filter, or null
+     */
+    public static IIngredientFilter compile(IIngredient ingredient) {
+        if (ingredient == null || !(ingredient.getInternal() instanceof ItemStack)) return null;
+
+        List<IItemStack> items = ingredient.getItems();
+        if (items == null || items.size() != 1 || !(items.get(0).getInternal() instanceof ItemStack)) return null;
+
+        ItemStack pattern = (ItemStack) items.get(0).getInternal();
+        if (pattern.getItem() == null) return null;
+
+        return new MCIngredientFilter(pattern);
+    }
+
+    @Override
+    public boolean mayMatch(IItemStack stack) {
+        Object internal = stack.getInternal();
+        if (!(internal instanceof ItemStack)) return true;
+
+        ItemStack itemStack = (ItemStack) internal;
+        return itemStack.getItem() == pattern.getItem()
+                && (anyDamage || itemStack.getItemDamage() == pattern.getItemDamage());
+    }
+}
@@ -36,6 +36,7 @@ import minetweaker.mc1710.actions.SetTranslationAction;
 import minetweaker.mc1710.block.MCItemBlock;
 import minetweaker.mc1710.data.NBTConverter;
 import minetweaker.mc1710.liquid.MCLiquidStack;
+import minetweaker.mc1710.oredict.OreDictIndex;
 import minetweaker.util.ArrayUtil;
 
 /**
@@ -77,6 +78,33 @@ public class MCItemStack implements IItemStack {
         this.wildcardSize = wildcardSize;
     }
 
+    /**
+     * Wraps a stack without copying it. The wrapper reflects later changes to the stack and must only be used for
+     * matching and reading; it must not be stored or handed out to scripts.
+     *
+     * @param itemStack stack to wrap
+     * @return read-only view of the stack
+     */
+    public static MCItemStack view(ItemStack itemStack) {
+        if (itemStack == null) throw new IllegalArgumentException("stack cannot be null");
+
+        return new MCItemStack(itemStack, (IData) null);
+    }
+
+    /**
+     * Creates a wildcard size stack of the given item. The stack is created for the wrapper only, so unlike the public
+     * constructors it is not copied again.
+     *
+     * @param item item
+     * @param meta damage value
+     * @return wildcard size stack
+     */
+    public static MCItemStack wildcardSize(Item item, int meta) {
+        if (item == null) throw new IllegalArgumentException("item cannot be null");
+
+        return new MCItemStack(new ItemStack(item, 1, meta), null, true);
+    }
+
     @Override
     public IItemDefinition getDefinition() {
         return new MCItemDefinition(Item.itemRegistry.getNameForObject(stack.getItem()), stack.getItem());
@@ -290,7 +318,17 @@ public class MCItemStack implements IItemStack {
 
     @Override
     public boolean matches(IItemStack item) {
-        ItemStack internal = getItemStack(item);
+        return matches(getItemStack(item));
+    }
+
+    /**
+     * Matches this stack against a raw item stack, with the same semantics as {@link #matches(IItemStack)} but without
+     * wrapping the stack first.
+     *
+     * @param internal stack to match
+     * @return true if this stack matches the given stack
+     */
+    public boolean matches(ItemStack internal) {
         return internal != null && stack != null
                 && internal.getItem() == stack.getItem()
                 && (wildcardSize || internal.stackSize >= stack.stackSize)
@@ -364,14 +402,8 @@ public class MCItemStack implements IItemStack {
     public List<IOreDictEntry> getOres() {
         List<IOreDictEntry> result = new ArrayList<IOreDictEntry>();
 
-        for (String key : OreDictionary.getOreNames()) {
-            for (ItemStack is : OreDictionary.getOres(key)) {
-                if (is.getItem() == stack.getItem() && (is.getItemDamage() == OreDictionary.WILDCARD_VALUE
-                        || is.getItemDamage() == stack.getItemDamage())) {
-                    result.add(MineTweakerAPI.oreDict.get(key));
-                    break;
-                }
-            }
+        for (int id : OreDictIndex.INSTANCE.getOreIds(stack)) {
+            result.add(MineTweakerAPI.oreDict.get(OreDictionary.getOreName(id)));
         }
 
         return result;
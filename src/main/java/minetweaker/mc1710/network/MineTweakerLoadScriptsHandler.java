@@ -5,13 +5,14 @@
 
 package minetweaker.mc1710.network;
 
+import java.util.List;
+
 import cpw.mods.fml.common.network.simpleimpl.IMessage;
 import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
 import cpw.mods.fml.common.network.simpleimpl.MessageContext;
 import minetweaker.MineTweakerAPI;
 import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.mc1710.MineTweakerConfig;
-import minetweaker.runtime.providers.ScriptProviderMemory;
 
 /**
  *
@@ -22,7 +23,17 @@ public class MineTweakerLoadScriptsHandler implements IMessageHandler<MineTweake
     @Override
     public IMessage onMessage(MineTweakerLoadScriptsPacket message, MessageContext ctx) {
         if (MineTweakerAPI.server == null && MineTweakerConfig.handleLoadScripts) {
-            MineTweakerImplementationAPI.setScriptProvider(new ScriptProviderMemory(message.getData()));
+            if (ScriptSync.INSTANCE.isLoaded(message.getEntries())) {
+                return null;
+            }
+
+            List<String> missing = ScriptSync.INSTANCE.receiveManifest(message.getEntries());
+            if (!missing.isEmpty()) {
+                ScriptSync.INSTANCE.requestFiles(missing);
+                return null;
+            }
+
+            MineTweakerImplementationAPI.setScriptProvider(ScriptSync.INSTANCE.createProvider());
             MineTweakerImplementationAPI.reload();
         }
         return null;
@@ -5,39 +5,59 @@
 
 package minetweaker.mc1710.network;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import cpw.mods.fml.common.network.ByteBufUtils;
 import cpw.mods.fml.common.network.simpleimpl.IMessage;
 import io.netty.buffer.ByteBuf;
 
 /**
+ * Script manifest, sent by the server. The client requests the files it does not have with a
+ * {@link MineTweakerRequestScriptsPacket}.
  *
  * @author Stan
  */
 public class MineTweakerLoadScriptsPacket implements IMessage {
 
-    private byte[] data;
+    private List<ScriptSync.ManifestEntry> entries;
 
     public MineTweakerLoadScriptsPacket() {
         // used for deserialization
     }
 
-    public MineTweakerLoadScriptsPacket(byte[] data) {
-        this.data = data;
+    public MineTweakerLoadScriptsPacket(List<ScriptSync.ManifestEntry> entries) {
+        this.entries = entries;
     }
 
-    public byte[] getData() {
-        return data;
+    public List<ScriptSync.ManifestEntry> getEntries() {
+        return entries;
     }
 
     @Override
     public void fromBytes(ByteBuf buf) {
         int size = buf.readInt();
-        data = new byte[size];
-        buf.readBytes(data);
+        // every entry takes at least three bytes
+        if (size < 0 || size > buf.readableBytes() / 3) {
+            throw new IllegalArgumentException("Invalid number of manifest entries: " + size);
+        }
+
+        entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String group = ByteBufUtils.readUTF8String(buf);
+            String name = ByteBufUtils.readUTF8String(buf);
+            String hash = ByteBufUtils.readUTF8String(buf);
+            entries.add(new ScriptSync.ManifestEntry(group, name, hash));
+        }
     }
 
     @Override
     public void toBytes(ByteBuf buf) {
-        buf.writeInt(data.length);
-        buf.writeBytes(data);
+        buf.writeInt(entries.size());
+        for (ScriptSync.ManifestEntry entry : entries) {
+            ByteBufUtils.writeUTF8String(buf, entry.group);
+            ByteBufUtils.writeUTF8String(buf, entry.name);
+            ByteBufUtils.writeUTF8String(buf, entry.hash);
+        }
     }
 }
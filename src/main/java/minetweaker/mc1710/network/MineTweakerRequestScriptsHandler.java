@@ -0,0 +1,14 @@
+package minetweaker.mc1710.network;
+
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
+import cpw.mods.fml.common.network.simpleimpl.MessageContext;
+
+public class MineTweakerRequestScriptsHandler implements IMessageHandler<MineTweakerRequestScriptsPacket, IMessage> {
+
+    @Override
+    public IMessage onMessage(MineTweakerRequestScriptsPacket message, MessageContext ctx) {
+        ScriptSync.INSTANCE.sendFiles(ctx.getServerHandler().playerEntity, message.getHashes());
+        return null;
+    }
+}
@@ -0,0 +1,51 @@
+package minetweaker.mc1710.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cpw.mods.fml.common.network.ByteBufUtils;
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Sent by the client in response to a {@link MineTweakerLoadScriptsPacket}, with the content hashes of the script
+ * files it does not have.
+ */
+public class MineTweakerRequestScriptsPacket implements IMessage {
+
+    private List<String> hashes;
+
+    public MineTweakerRequestScriptsPacket() {
+        // used for deserialization
+    }
+
+    public MineTweakerRequestScriptsPacket(List<String> hashes) {
+        this.hashes = hashes;
+    }
+
+    public List<String> getHashes() {
+        return hashes;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        int size = buf.readInt();
+        // every hash takes at least one byte
+        if (size < 0 || size > buf.readableBytes()) {
+            throw new IllegalArgumentException("Invalid number of requested scripts: " + size);
+        }
+
+        hashes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hashes.add(ByteBufUtils.readUTF8String(buf));
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeInt(hashes.size());
+        for (String hash : hashes) {
+            ByteBufUtils.writeUTF8String(buf, hash);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package minetweaker.mc1710.network;
+
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
+import cpw.mods.fml.common.network.simpleimpl.MessageContext;
+import minetweaker.MineTweakerAPI;
+import minetweaker.MineTweakerImplementationAPI;
+import minetweaker.mc1710.MineTweakerConfig;
+
+public class MineTweakerScriptChunkHandler implements IMessageHandler<MineTweakerScriptChunkPacket, IMessage> {
+
+    @Override
+    public IMessage onMessage(MineTweakerScriptChunkPacket message, MessageContext ctx) {
+        if (MineTweakerAPI.server == null && MineTweakerConfig.handleLoadScripts
+                && ScriptSync.INSTANCE.receiveChunk(message)) {
+            MineTweakerImplementationAPI.setScriptProvider(ScriptSync.INSTANCE.createProvider());
+            MineTweakerImplementationAPI.reload();
+        }
+        return null;
+    }
+}
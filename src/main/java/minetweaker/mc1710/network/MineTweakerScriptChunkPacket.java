@@ -0,0 +1,66 @@
+package minetweaker.mc1710.network;
+
+import cpw.mods.fml.common.network.ByteBufUtils;
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Part of a compressed script file, sent by the server in response to a {@link MineTweakerRequestScriptsPacket}.
+ */
+public class MineTweakerScriptChunkPacket implements IMessage {
+
+    private String hash;
+    private int totalLength;
+    private int offset;
+    private byte[] data;
+
+    public MineTweakerScriptChunkPacket() {
+        // used for deserialization
+    }
+
+    public MineTweakerScriptChunkPacket(String hash, int totalLength, int offset, byte[] data) {
+        this.hash = hash;
+        this.totalLength = totalLength;
+        this.offset = offset;
+        this.data = data;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public int getTotalLength() {
+        return totalLength;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        hash = ByteBufUtils.readUTF8String(buf);
+        totalLength = buf.readInt();
+        offset = buf.readInt();
+        int length = buf.readInt();
+        if (length < 0 || length > ScriptSync.CHUNK_SIZE || length > buf.readableBytes()) {
+            throw new IllegalArgumentException("Invalid script chunk length: " + length);
+        }
+
+        data = new byte[length];
+        buf.readBytes(data);
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        ByteBufUtils.writeUTF8String(buf, hash);
+        buf.writeInt(totalLength);
+        buf.writeInt(offset);
+        buf.writeInt(data.length);
+        buf.writeBytes(data);
+    }
+}
@@ -0,0 +1,494 @@
+package minetweaker.mc1710.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import minetweaker.MineTweakerAPI;
+import minetweaker.mc1710.MineTweakerMod;
+import minetweaker.runtime.IScriptIterator;
+import minetweaker.runtime.IScriptProvider;
+import minetweaker.runtime.providers.ScriptProviderMemory;
+import minetweaker.util.FileUtil;
+import minetweaker.util.HashUtil;
+
+/**
+ * Content-addressed script synchronization between server and client.
+ * <p>
+ * Instead of sending all scripts on every login and reload, the server sends a manifest with the group, name and
+ * content hash of every script file. The client answers with the hashes it does not have yet, and the server sends
+ * only those files, compressed and split into chunks that fit in a single packet. Received files are stored in the
+ * client cache directory by hash, so that unchanged files are never transmitted twice, not even across sessions.
+ */
+public class ScriptSync {
+
+    public static final ScriptSync INSTANCE = new ScriptSync(new File("minetweaker-cache", "scripts"));
+
+    /**
+     * Maximum size of the file data in a single chunk packet, in bytes.
+     */
+    public static final int CHUNK_SIZE = 30000;
+
+    /**
+     * Maximum number of hashes in a single request packet. Every hash takes 65 bytes (64 hex digits and their length),
+     * and client packets have to stay below 32767 bytes.
+     */
+    public static final int REQUEST_SIZE = CHUNK_SIZE / 65;
+
+    /**
+     * Maximum size of a single script file, compressed or uncompressed, in bytes. Larger files are rejected by the
+     * client.
+     */
+    public static final int MAX_FILE_SIZE = 16 * 1024 * 1024;
+
+    private static final String EXTENSION = ".zs";
+
+    /**
+     * Maximum number of script files kept in the client cache directory.
+     */
+    private static final int MAX_CACHED_FILES = 1024;
+
+    /**
+     * Number of times a file that failed to decompress or did not match its hash is requested again before the sync
+     * is given up.
+     */
+    private static final int MAX_RETRIES = 2;
+
+    private final File directory;
+
+    // server side
+    private byte[] manifestSource = null;
+    private List<ManifestEntry> manifest = Collections.emptyList();
+    private String manifestDigest = getDigest(manifest);
+    private final Map<String, byte[]> compressed = new HashMap<>();
+
+    // client side
+    private final Map<String, byte[]> contents = new HashMap<>();
+    private final Map<String, ChunkBuffer> incoming = new HashMap<>();
+    private final Map<String, Integer> retries = new HashMap<>();
+    private final Set<String> requested = new HashSet<>();
+    private List<ManifestEntry> pending = null;
+    private byte[] loadedSource = null;
+    private String loadedDigest = null;
+    private final AtomicInteger skippedReloads = new AtomicInteger();
+
+    private ScriptSync(File directory) {
+        this.directory = directory;
+    }
+
+    // #############################
+    // ### Server side functions ###
+    // #############################
+
+    /**
+     * Sends the manifest of the currently loaded scripts to the given player.
+     *
+     * @param player player
+     */
+    public void sendManifest(EntityPlayerMP player) {
+        MineTweakerMod.NETWORK.sendTo(new MineTweakerLoadScriptsPacket(getManifest()), player);
+    }
+
+    /**
+     * Sends the manifest of the currently loaded scripts to all players.
+     */
+    public void sendManifestToAll() {
+        MineTweakerMod.NETWORK.sendToAll(new MineTweakerLoadScriptsPacket(getManifest()));
+    }
+
+    /**
+     * Sends the requested script files to the given player. Hashes that are not part of the current manifest are
+     * ignored, and every file is sent at most once per request.
+     *
+     * @param player player
+     * @param hashes requested content hashes
+     */
+    public void sendFiles(EntityPlayerMP player, List<String> hashes) {
+        for (String hash : new LinkedHashSet<>(hashes)) {
+            byte[] data;
+            synchronized (this) {
+                data = compressed.get(hash);
+            }
+            if (data == null) continue;
+
+            for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, data.length - offset);
+                byte[] chunk = Arrays.copyOfRange(data, offset, offset + length);
+                MineTweakerMod.NETWORK
+                        .sendTo(new MineTweakerScriptChunkPacket(hash, data.length, offset, chunk), player);
+            }
+        }
+    }
+
+    // #############################
+    // ### Client side functions ###
+    // #############################
+
+    /**
+     * Checks if the given manifest describes exactly the scripts that are currently loaded, for instance because they
+     * were loaded before connecting or the server sent the same scripts again. Reloading is not necessary in that
+     * case; the skipped reload is logged and counted, and any unfinished sync of an earlier manifest is cancelled.
+     *
+     * @param entries manifest entries
+     * @return true if the scripts are already loaded
+     */
+    public boolean isLoaded(List<ManifestEntry> entries) {
+        String digest = getDigest(entries);
+        synchronized (this) {
+            if (!digest.equals(getLoadedDigest())) return false;
+
+            pending = null;
+            incoming.clear();
+            retries.clear();
+            requested.clear();
+        }
+
+        int skipped = skippedReloads.incrementAndGet();
+        MineTweakerAPI
+                .logInfo("Received scripts are already loaded, skipping reload (" + skipped + " reloads skipped)");
+        return true;
+    }
+
+    /**
+     * Returns the number of reloads skipped because the received scripts were already loaded.
+     *
+     * @return number of skipped reloads
+     */
+    public int getSkippedReloads() {
+        return skippedReloads.get();
+    }
+
+    /**
+     * Starts loading the scripts described by the given manifest.
+     *
+     * @param entries manifest entries
+     * @return content hashes which have to be requested from the server; if empty, the scripts can be loaded directly
+     */
+    public synchronized List<String> receiveManifest(List<ManifestEntry> entries) {
+        pending = entries;
+        incoming.clear();
+        retries.clear();
+        requested.clear();
+
+        Set<String> missing = new LinkedHashSet<>();
+        for (ManifestEntry entry : entries) {
+            if (!contents.containsKey(entry.hash) && !loadCached(entry.hash)) {
+                missing.add(entry.hash);
+            }
+        }
+        requested.addAll(missing);
+        return new ArrayList<>(missing);
+    }
+
+    /**
+     * Requests the given script files from the server, split over as many packets as needed.
+     *
+     * @param hashes content hashes, as returned by {@link #receiveManifest}
+     */
+    public void requestFiles(List<String> hashes) {
+        for (int i = 0; i < hashes.size(); i += REQUEST_SIZE) {
+            List<String> batch = new ArrayList<>(hashes.subList(i, Math.min(i + REQUEST_SIZE, hashes.size())));
+            MineTweakerMod.NETWORK.sendToServer(new MineTweakerRequestScriptsPacket(batch));
+        }
+    }
+
+    /**
+     * Receives a chunk of a requested script file. Chunks of files that were not requested are ignored. If a file
+     * cannot be decompressed or does not match its hash, it is requested again; if that keeps failing, the sync is
+     * given up and an error is logged.
+     *
+     * @param chunk chunk packet
+     * @return true if all files of the pending manifest are now available
+     */
+    public synchronized boolean receiveChunk(MineTweakerScriptChunkPacket chunk) {
+        String hash = chunk.getHash();
+        if (pending == null || !requested.contains(hash) || contents.containsKey(hash)) return false;
+
+        ChunkBuffer buffer = incoming.get(hash);
+        if (buffer == null) {
+            if (chunk.getTotalLength() <= 0 || chunk.getTotalLength() > MAX_FILE_SIZE) {
+                retry(hash, "has an invalid size of " + chunk.getTotalLength() + " bytes");
+                return false;
+            }
+
+            buffer = new ChunkBuffer(chunk.getTotalLength());
+            incoming.put(hash, buffer);
+        }
+        if (!buffer.accepts(chunk.getTotalLength(), chunk.getOffset(), chunk.getData())) {
+            retry(hash, "was received in an invalid chunk");
+            return false;
+        }
+        if (!buffer.add(chunk.getOffset(), chunk.getData())) return false;
+
+        incoming.remove(hash);
+        byte[] data;
+        try {
+            data = inflate(buffer.data);
+        } catch (IOException ex) {
+            retry(hash, "could not be decompressed: " + ex.getMessage());
+            return false;
+        }
+
+        if (!HashUtil.sha256(data).equals(hash)) {
+            retry(hash, "does not match its hash");
+            return false;
+        }
+
+        contents.put(hash, data);
+        storeCached(hash, data);
+
+        for (ManifestEntry entry : pending) {
+            if (!contents.containsKey(entry.hash)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a script provider for the pending manifest. Must only be called once all files are available. Files that
+     * are not part of the manifest are released from memory.
+     *
+     * @return script provider
+     */
+    public synchronized IScriptProvider createProvider() {
+        Map<String, Map<String, byte[]>> groups = new LinkedHashMap<>();
+        Set<String> used = new LinkedHashSet<>();
+        for (ManifestEntry entry : pending) {
+            groups.computeIfAbsent(entry.group, k -> new LinkedHashMap<>()).put(entry.name, contents.get(entry.hash));
+            used.add(entry.hash);
+        }
+
+        contents.keySet().retainAll(used);
+        pending = null;
+        return new ScriptProviderMemory(groups);
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void retry(String hash, String reason) {
+        incoming.remove(hash);
+
+        int attempts = retries.merge(hash, 1, Integer::sum);
+        if (attempts > MAX_RETRIES) {
+            MineTweakerAPI.logError(
+                    "Transmitted script " + hash + " " + reason + ", giving up; the server scripts were not loaded");
+            pending = null;
+            incoming.clear();
+            retries.clear();
+            requested.clear();
+            return;
+        }
+
+        MineTweakerAPI.logWarning("Transmitted script " + hash + " " + reason + ", requesting it again");
+        MineTweakerMod.NETWORK.sendToServer(new MineTweakerRequestScriptsPacket(Collections.singletonList(hash)));
+    }
+
+    private synchronized List<ManifestEntry> getManifest() {
+        byte[] data = MineTweakerAPI.tweaker.getScriptData();
+        if (data == null) return Collections.emptyList();
+        if (data == manifestSource) return manifest;
+
+        compressed.clear();
+        manifestSource = data;
+        manifest = Collections.unmodifiableList(readManifest(data, compressed));
+        manifestDigest = getDigest(manifest);
+        return manifest;
+    }
+
+    /**
+     * Returns the manifest digest of the currently loaded scripts, without preparing them for sending.
+     */
+    private synchronized String getLoadedDigest() {
+        byte[] data = MineTweakerAPI.tweaker.getScriptData();
+        if (data == null) return getDigest(Collections.emptyList());
+        if (data != loadedSource) {
+            loadedSource = data;
+            loadedDigest = getDigest(readManifest(data, null));
+        }
+        return loadedDigest;
+    }
+
+    /**
+     * Reads the manifest entries of the given script data.
+     *
+     * @param data       script data
+     * @param compressed map receiving the compressed contents by hash, or null if they are not needed
+     * @return manifest entries
+     */
+    private static List<ManifestEntry> readManifest(byte[] data, Map<String, byte[]> compressed) {
+        List<ManifestEntry> entries = new ArrayList<>();
+        Iterator<IScriptIterator> scripts = new ScriptProviderMemory(data).getScripts();
+        while (scripts.hasNext()) {
+            IScriptIterator script = scripts.next();
+            while (script.next()) {
+                try {
+                    byte[] contents = FileUtil.read(script.open());
+                    String hash = HashUtil.sha256(contents);
+                    entries.add(new ManifestEntry(script.getGroupName(), script.getName(), hash));
+                    if (compressed != null && !compressed.containsKey(hash)) {
+                        compressed.put(hash, deflate(contents));
+                    }
+                } catch (IOException ex) {
+                    MineTweakerAPI.logError("Could not read script " + script.getName(), ex);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static String getDigest(List<ManifestEntry> entries) {
+        StringBuilder result = new StringBuilder();
+        for (ManifestEntry entry : entries) {
+            result.append(entry.group).append('\0').append(entry.name).append('\0').append(entry.hash).append('\n');
+        }
+        return HashUtil.sha256(result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean loadCached(String hash) {
+        File file = new File(directory, hash + EXTENSION);
+        if (!file.exists()) return false;
+
+        try (InputStream input = new FileInputStream(file)) {
+            byte[] data = FileUtil.read(input);
+            if (!HashUtil.sha256(data).equals(hash)) {
+                file.delete();
+                return false;
+            }
+
+            file.setLastModified(System.currentTimeMillis());
+            contents.put(hash, data);
+            return true;
+        } catch (IOException ex) {
+            file.delete();
+            return false;
+        }
+    }
+
+    private void storeCached(String hash, byte[] data) {
+        if (!directory.exists() && !directory.mkdirs()) return;
+
+        File file = new File(directory, hash + EXTENSION);
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(data);
+        } catch (IOException ex) {
+            MineTweakerAPI.logWarning("Could not cache transmitted script " + hash + ": " + ex.getMessage());
+            file.delete();
+            return;
+        }
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null && files.length > MAX_CACHED_FILES) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (int i = 0; i < files.length - MAX_CACHED_FILES; i++) {
+                files[i].delete();
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output)) {
+            deflater.write(data);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[8192];
+            for (int read = inflater.read(buffer); read >= 0; read = inflater.read(buffer)) {
+                if (output.size() + read > MAX_FILE_SIZE) throw new IOException("script is too large");
+
+                output.write(buffer, 0, read);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    // ############################
+    // ### Public inner classes ###
+    // ############################
+
+    /**
+     * A single script file in the manifest.
+     */
+    public static class ManifestEntry {
+
+        public final String group;
+        public final String name;
+        public final String hash;
+
+        public ManifestEntry(String group, String name, String hash) {
+            this.group = group;
+            this.name = name;
+            this.hash = hash;
+        }
+    }
+
+    // #############################
+    // ### Private inner classes ###
+    // #############################
+
+    private static class ChunkBuffer {
+
+        private final byte[] data;
+        private final BitSet chunks = new BitSet();
+        private int received = 0;
+
+        public ChunkBuffer(int length) {
+            data = new byte[length];
+        }
+
+        /**
+         * Checks if the given chunk belongs to this buffer, as sent by {@link ScriptSync#sendFiles}.
+         *
+         * @return true if the chunk fits
+         */
+        public boolean accepts(int totalLength, int offset, byte[] chunk) {
+            return totalLength == data.length && offset >= 0
+                    && offset < data.length
+                    && offset % CHUNK_SIZE == 0
+                    && chunk.length == Math.min(CHUNK_SIZE, data.length - offset);
+        }
+
+        /**
+         * Adds a chunk to this buffer. Chunks received twice are only counted once.
+         *
+         * @return true if the buffer is complete
+         */
+        public boolean add(int offset, byte[] chunk) {
+            System.arraycopy(chunk, 0, data, offset, chunk.length);
+            if (!chunks.get(offset / CHUNK_SIZE)) {
+                chunks.set(offset / CHUNK_SIZE);
+                received += chunk.length;
+            }
+            return received >= data.length;
+        }
+    }
+}
@@ -12,9 +12,11 @@ import java.util.List;
 
 import net.minecraftforge.oredict.OreDictionary;
 
+import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.api.minecraft.MineTweakerMC;
 import minetweaker.api.oredict.IOreDict;
 import minetweaker.api.oredict.IOreDictEntry;
+import minetweaker.util.IEventHandler;
 
 /**
  *
@@ -22,6 +24,10 @@ import minetweaker.api.oredict.IOreDictEntry;
  */
 public class MCOreDict implements IOreDict {
 
+    public MCOreDict() {
+        MineTweakerImplementationAPI.onReloadEvent(new HandleReload());
+    }
+
     @Override
     public IOreDictEntry get(String name) {
         return getOreDict(name);
@@ -37,4 +43,16 @@ public class MCOreDict implements IOreDict {
         }
         return entries;
     }
+
+    /**
+     * Rebuilds the ore dictionary index before the scripts are loaded, since other mods may have changed the ore lists
+     * directly since the last reload.
+     */
+    private static class HandleReload implements IEventHandler<MineTweakerImplementationAPI.ReloadEvent> {
+
+        @Override
+        public void handle(MineTweakerImplementationAPI.ReloadEvent event) {
+            OreDictIndex.INSTANCE.invalidate();
+        }
+    }
 }
@@ -127,13 +127,18 @@ public class MCOreDictEntry implements IOreDictEntry {
 
     @Override
     public boolean contains(IItemStack item) {
-        for (ItemStack itemStack : OreDictionary.getOres(id)) {
-            if (getIItemStackWildcardSize(itemStack).matches(item)) {
-                return true;
-            }
-        }
+        return item != null && OreDictIndex.INSTANCE.contains(id, getItemStack(item));
+    }
 
-        return false;
+    /**
+     * Checks if this entry contains a raw item stack, with the same semantics as {@link #contains(IItemStack)} but
+     * without wrapping the stack first.
+     *
+     * @param stack stack to check
+     * @return true if this entry contains the given stack
+     */
+    public boolean contains(ItemStack stack) {
+        return OreDictIndex.INSTANCE.contains(id, stack);
     }
 
     @Override
@@ -270,6 +275,7 @@ public class MCOreDictEntry implements IOreDictEntry {
 
         @Override
         public void apply() {
+            // the index picks up the registration from the ore register event
             OreDictionary.registerOre(id, item);
         }
 
@@ -281,6 +287,7 @@ public class MCOreDictEntry implements IOreDictEntry {
         @Override
         public void undo() {
             OREDICT_CONTENTS.get(id).remove(item);
+            OreDictIndex.INSTANCE.remove(id, item);
         }
 
         @Override
@@ -319,6 +326,7 @@ public class MCOreDictEntry implements IOreDictEntry {
         public void apply() {
             OREDICT_CONTENTS.set(idTarget, OREDICT_CONTENTS.get(idSource));
             OREDICT_CONTENTS_UN.set(idTarget, OREDICT_CONTENTS_UN.get(idSource));
+            OreDictIndex.INSTANCE.refresh(idTarget);
         }
 
         @Override
@@ -330,6 +338,8 @@ public class MCOreDictEntry implements IOreDictEntry {
         public void undo() {
             OREDICT_CONTENTS.set(idTarget, targetCopy);
             OREDICT_CONTENTS_UN.set(idTarget, targetCopyUn);
+            OreDictIndex.INSTANCE.refresh(idTarget);
+            OreDictIndex.INSTANCE.refresh(idSource);
         }
 
         @Override
@@ -363,6 +373,7 @@ public class MCOreDictEntry implements IOreDictEntry {
         @Override
         public void apply() {
             OREDICT_CONTENTS.get(id).remove(item);
+            OreDictIndex.INSTANCE.remove(id, item);
         }
 
         @Override
@@ -373,6 +384,7 @@ public class MCOreDictEntry implements IOreDictEntry {
         @Override
         public void undo() {
             OREDICT_CONTENTS.get(id).add(item);
+            OreDictIndex.INSTANCE.add(id, item);
         }
 
         @Override
@@ -403,6 +415,7 @@ public class MCOreDictEntry implements IOreDictEntry {
 
         @Override
         public void apply() {
+            // the index picks up the registrations from the ore register events
             for (ItemStack stack : OreDictionary.getOres(idSource)) {
                 OreDictionary.registerOre(idTarget, stack);
             }
@@ -418,6 +431,7 @@ public class MCOreDictEntry implements IOreDictEntry {
             for (ItemStack stack : OreDictionary.getOres(idSource)) {
                 OREDICT_CONTENTS.get(idTarget).remove(stack);
             }
+            OreDictIndex.INSTANCE.refresh(idTarget);
         }
 
         @Override
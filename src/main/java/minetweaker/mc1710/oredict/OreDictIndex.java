@@ -0,0 +1,258 @@
+package minetweaker.mc1710.oredict;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import minetweaker.mc1710.util.MineTweakerHacks;
+
+/**
+ * Inverted ore dictionary index, mapping item and damage to the set of ore ids containing them.
+ * <p>
+ * The ore dictionary actions modify the ore lists directly, bypassing the lookup tables kept by Forge, so this index
+ * has to be updated by every action that changes an ore list. Ore ids sharing the same list (after a mirror) are
+ * updated together. Registrations made through Forge, including those of the add actions, are picked up from the ore
+ * register event. Changes other mods make to the ore lists directly are only picked up by the full rebuild at the start
+ * of every reload.
+ * <p>
+ * Lookups don't lock. The ore ids of an item are published as an immutable map, which is replaced as a whole when
+ * they change; a full rebuild publishes a new index.
+ */
+public class OreDictIndex {
+
+    public static final OreDictIndex INSTANCE = new OreDictIndex();
+
+    private static final List<ArrayList<ItemStack>> OREDICT_CONTENTS = MineTweakerHacks.getOreIdStacks();
+
+    /**
+     * Ore ids per item and damage, or null if the index has to be rebuilt. The maps and bit sets of an item are never
+     * modified after they have been published.
+     */
+    private volatile Map<Item, Map<Integer, BitSet>> members = null;
+
+    /**
+     * Stacks each ore id was last indexed with, so that their entries can be cleared when the ore id is reindexed.
+     * Guarded by this index.
+     */
+    private final List<List<ItemStack>> indexed = new ArrayList<>();
+
+    private OreDictIndex() {}
+
+    /**
+     * Checks if the given ore entry contains the given stack, with the same semantics as matching a wildcard size item
+     * stack from the ore entry against the stack.
+     *
+     * @param oreId ore id
+     * @param stack item stack
+     * @return true if the ore entry contains the stack
+     */
+    public boolean contains(int oreId, ItemStack stack) {
+        if (oreId < 0 || stack == null || stack.getItem() == null) return false;
+
+        Map<Integer, BitSet> byDamage = getMembers().get(stack.getItem());
+        if (byDamage == null) return false;
+
+        if (!stack.getHasSubtypes() && !stack.getItem().isDamageable()) {
+            // ore entries of items without subtypes match any damage value
+            for (BitSet ores : byDamage.values()) {
+                if (ores.get(oreId)) return true;
+            }
+            return false;
+        }
+
+        return get(byDamage, stack.getItemDamage(), oreId) || get(byDamage, OreDictionary.WILDCARD_VALUE, oreId);
+    }
+
+    /**
+     * Returns the ids of all ore entries containing the given stack with either the same or a wildcard damage value.
+     *
+     * @param stack item stack
+     * @return ore ids, in ascending order
+     */
+    public List<Integer> getOreIds(ItemStack stack) {
+        if (stack == null || stack.getItem() == null) return Collections.emptyList();
+
+        Map<Integer, BitSet> byDamage = getMembers().get(stack.getItem());
+        if (byDamage == null) return Collections.emptyList();
+
+        BitSet ores = new BitSet();
+        BitSet exact = byDamage.get(stack.getItemDamage());
+        BitSet wildcard = byDamage.get(OreDictionary.WILDCARD_VALUE);
+        if (exact != null) ores.or(exact);
+        if (wildcard != null) ores.or(wildcard);
+
+        List<Integer> result = new ArrayList<>(ores.cardinality());
+        for (int i = ores.nextSetBit(0); i >= 0; i = ores.nextSetBit(i + 1)) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    /**
+     * Updates the index after a stack has been added to the list of an ore entry. Only the entries of the added stack
+     * are updated.
+     *
+     * @param oreId ore id
+     * @param stack added stack
+     */
+    public synchronized void add(int oreId, ItemStack stack) {
+        Map<Item, Map<Integer, BitSet>> current = members;
+        if (current == null || oreId < 0 || stack == null || stack.getItem() == null) return;
+
+        BitSet ids = getSharingIds(oreId);
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            getIndexed(i).add(stack);
+            update(current, stack.getItem(), stack.getItemDamage(), i, true);
+        }
+    }
+
+    /**
+     * Updates the index after a stack has been removed from the list of an ore entry. Only the entries of the removed
+     * stack are updated; they stay set if the list still contains a stack with the same item and damage.
+     *
+     * @param oreId ore id
+     * @param stack removed stack
+     */
+    public synchronized void remove(int oreId, ItemStack stack) {
+        Map<Item, Map<Integer, BitSet>> current = members;
+        if (current == null || oreId < 0 || stack == null || stack.getItem() == null) return;
+
+        Item item = stack.getItem();
+        int damage = stack.getItemDamage();
+        boolean present = containsStack(getContents(oreId), item, damage);
+        BitSet ids = getSharingIds(oreId);
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            if (!present) getIndexed(i).removeIf(s -> s.getItem() == item && s.getItemDamage() == damage);
+            update(current, item, damage, i, present);
+        }
+    }
+
+    /**
+     * Updates the index after the contents of an ore entry changed. Entries sharing the same list are updated as well.
+     * Reindexes the whole entry; use {@link #add} or {@link #remove} for single stacks.
+     *
+     * @param oreId ore id
+     */
+    public synchronized void refresh(int oreId) {
+        Map<Item, Map<Integer, BitSet>> current = members;
+        if (current == null || oreId < 0) return;
+
+        BitSet ids = getSharingIds(oreId);
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            reindex(current, i);
+        }
+    }
+
+    /**
+     * Forces a full rebuild on the next lookup.
+     */
+    public synchronized void invalidate() {
+        members = null;
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private Map<Item, Map<Integer, BitSet>> getMembers() {
+        Map<Item, Map<Integer, BitSet>> current = members;
+        return current != null ? current : build();
+    }
+
+    private synchronized Map<Item, Map<Integer, BitSet>> build() {
+        if (members != null) return members;
+
+        Map<Item, Map<Integer, BitSet>> result = new HashMap<>();
+        indexed.clear();
+        for (int i = 0; OREDICT_CONTENTS != null && i < OREDICT_CONTENTS.size(); i++) {
+            List<ItemStack> snapshot = new ArrayList<>();
+            for (ItemStack stack : getContents(i)) {
+                if (stack == null || stack.getItem() == null) continue;
+
+                result.computeIfAbsent(stack.getItem(), k -> new HashMap<>())
+                        .computeIfAbsent(stack.getItemDamage(), k -> new BitSet()).set(i);
+                snapshot.add(stack);
+            }
+            indexed.add(snapshot);
+        }
+
+        members = new ConcurrentHashMap<>(result);
+        return members;
+    }
+
+    private void reindex(Map<Item, Map<Integer, BitSet>> current, int oreId) {
+        List<ItemStack> previous = getIndexed(oreId);
+        for (ItemStack stack : previous) {
+            update(current, stack.getItem(), stack.getItemDamage(), oreId, false);
+        }
+        previous.clear();
+
+        for (ItemStack stack : getContents(oreId)) {
+            if (stack == null || stack.getItem() == null) continue;
+
+            update(current, stack.getItem(), stack.getItemDamage(), oreId, true);
+            previous.add(stack);
+        }
+    }
+
+    private static void update(Map<Item, Map<Integer, BitSet>> current, Item item, int damage, int oreId,
+            boolean value) {
+        Map<Integer, BitSet> byDamage = current.get(item);
+        BitSet ores = byDamage == null ? null : byDamage.get(damage);
+        if (ores == null ? !value : ores.get(oreId) == value) return;
+
+        // published maps are never modified; replace the ore ids of this item as a whole
+        Map<Integer, BitSet> updated = byDamage == null ? new HashMap<>() : new HashMap<>(byDamage);
+        BitSet updatedOres = ores == null ? new BitSet() : (BitSet) ores.clone();
+        updatedOres.set(oreId, value);
+        updated.put(damage, updatedOres);
+        current.put(item, updated);
+    }
+
+    private List<ItemStack> getIndexed(int oreId) {
+        while (indexed.size() <= oreId) {
+            indexed.add(new ArrayList<>());
+        }
+        return indexed.get(oreId);
+    }
+
+    private static List<ItemStack> getContents(int oreId) {
+        List<ItemStack> contents = OREDICT_CONTENTS != null && oreId < OREDICT_CONTENTS.size()
+                ? OREDICT_CONTENTS.get(oreId)
+                : null;
+        return contents == null ? Collections.emptyList() : contents;
+    }
+
+    private static BitSet getSharingIds(int oreId) {
+        BitSet result = new BitSet();
+        result.set(oreId);
+
+        List<ItemStack> contents = OREDICT_CONTENTS != null && oreId < OREDICT_CONTENTS.size()
+                ? OREDICT_CONTENTS.get(oreId)
+                : null;
+        for (int i = 0; contents != null && i < OREDICT_CONTENTS.size(); i++) {
+            if (OREDICT_CONTENTS.get(i) == contents) result.set(i);
+        }
+        return result;
+    }
+
+    private static boolean containsStack(List<ItemStack> contents, Item item, int damage) {
+        for (ItemStack stack : contents) {
+            if (stack != null && stack.getItem() == item && stack.getItemDamage() == damage) return true;
+        }
+        return false;
+    }
+
+    private static boolean get(Map<Integer, BitSet> byDamage, int damage, int oreId) {
+        BitSet ores = byDamage.get(damage);
+        return ores != null && ores.get(oreId);
+    }
+}
@@ -22,6 +22,8 @@ import net.minecraft.item.ItemStack;
 import minetweaker.api.item.IItemStack;
 import minetweaker.api.player.IPlayer;
 import minetweaker.api.recipes.ICraftingInventory;
+import minetweaker.api.recipes.ICraftingRecipe;
+import minetweaker.api.recipes.RecipeMatching;
 import minetweaker.mc1710.player.MCPlayer;
 import minetweaker.mc1710.util.MineTweakerHacks;
 
@@ -66,6 +68,8 @@ public class MCCraftingInventory implements ICraftingInventory {
     private int stackCount;
     private final IPlayer player;
     private final EntityPlayer playerOrig;
+    private ICraftingRecipe cachedRecipe;
+    private RecipeMatching cachedMatch;
 
     private MCCraftingInventory(InventoryCrafting inventory) {
         this.inventory = inventory;
@@ -110,11 +114,13 @@ public class MCCraftingInventory implements ICraftingInventory {
             stacks = new IItemStack[inventory.getSizeInventory()];
             original = new ItemStack[stacks.length];
             stackCount = 0;
+            clearCachedMatch();
         }
 
         for (int i = 0; i < inventory.getSizeInventory(); i++) {
             if (changed(i)) {
                 // System.out.println("Slot " + i + " changed");
+                clearCachedMatch();
                 original[i] = inventory.getStackInSlot(i);
                 if (inventory.getStackInSlot(i) != null) {
                     if (stacks[i] == null) stackCount++;
@@ -169,6 +175,7 @@ public class MCCraftingInventory implements ICraftingInventory {
 
         int ix = y * width + x;
         if (stack != stacks[ix]) {
+            clearCachedMatch();
             if (stack == null) {
                 stackCount--;
                 inventory.setInventorySlotContents(ix, null);
@@ -188,6 +195,7 @@ public class MCCraftingInventory implements ICraftingInventory {
         // System.out.println("SetStack(" + i + ") " + stack);
 
         if (stack != stacks[i]) {
+            clearCachedMatch();
             if (stack == null) {
                 stackCount--;
                 inventory.setInventorySlotContents(i, null);
@@ -202,6 +210,22 @@ public class MCCraftingInventory implements ICraftingInventory {
         }
     }
 
+    @Override
+    public RecipeMatching getCachedMatch(ICraftingRecipe recipe) {
+        return cachedRecipe == recipe ? cachedMatch : null;
+    }
+
+    @Override
+    public void setCachedMatch(ICraftingRecipe recipe, RecipeMatching matching) {
+        cachedRecipe = recipe;
+        cachedMatch = matching;
+    }
+
+    private void clearCachedMatch() {
+        cachedRecipe = null;
+        cachedMatch = null;
+    }
+
     private boolean changed(int i) {
         if (original[i] != inventory.getStackInSlot(i)) return true;
         if (original[i] != null && stacks[i].getAmount() != original[i].stackSize) return true;
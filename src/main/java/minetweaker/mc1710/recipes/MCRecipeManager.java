@@ -1,12 +1,13 @@
 package minetweaker.mc1710.recipes;
 
 import static minetweaker.api.minecraft.MineTweakerMC.getIItemStack;
+import static minetweaker.api.minecraft.MineTweakerMC.getIItemStackView;
 import static minetweaker.api.minecraft.MineTweakerMC.getItemStack;
 import static minetweaker.api.minecraft.MineTweakerMC.getOreDict;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
 import net.minecraft.entity.player.EntityPlayer;
@@ -38,7 +39,6 @@ import minetweaker.api.recipes.ShapedRecipe;
 import minetweaker.api.recipes.ShapelessRecipe;
 import minetweaker.mc1710.item.MCItemStack;
 import minetweaker.mc1710.util.MineTweakerHacks;
-import minetweaker.mc1710.util.ThreadSafeBitSet;
 import minetweaker.util.IEventHandler;
 import stanhebben.zenscript.annotations.Optional;
 
@@ -53,7 +53,17 @@ public final class MCRecipeManager implements IRecipeManager {
     public static final List<IRecipe> recipesToUndo = new ArrayList<>();
 
     public static List<IRecipe> recipes;
+    public static final RecipeIndex recipeIndex = new RecipeIndex();
     public static final List<ICraftingRecipe> transformerRecipes = new ArrayList<>();
+    public static final TransformerRecipeIndex transformerIndex = new TransformerRecipeIndex();
+
+    /**
+     * Last recipe wrapper that computed a crafting result on this thread, and the crafting matrix it was computed for.
+     * The matrix is only weakly referenced, since it keeps its container, player and world alive; the entry is cleared
+     * once the crafted item has been taken out.
+     */
+    private static final ThreadLocal<Pair<WeakReference<InventoryCrafting>, ICraftingRecipe>> lastCrafted =
+            new ThreadLocal<>();
 
     public MCRecipeManager() {
         MineTweakerImplementationAPI.onPostReload(new HandleLateAdditionsAndRemovals());
@@ -65,7 +75,32 @@ public final class MCRecipeManager implements IRecipeManager {
     }
 
     public static void applyTransformations(ICraftingInventory inventory, IPlayer byPlayer) {
-        for (ICraftingRecipe recipe : transformerRecipes) {
+        applyTransformations(inventory, null, null, byPlayer);
+    }
+
+    /**
+     * Applies the transformers of the recipe that crafted the given item. The recipe recorded by the last crafting
+     * result computation on the same crafting matrix is tried first; otherwise only the transformer recipes that can
+     * produce the crafted item are checked.
+     *
+     * @param inventory   crafting inventory
+     * @param craftMatrix crafting matrix the item was crafted in, or null if unknown
+     * @param crafted     crafted item, or null if unknown
+     * @param byPlayer    crafting player
+     */
+    public static void applyTransformations(ICraftingInventory inventory, InventoryCrafting craftMatrix,
+            ItemStack crafted, IPlayer byPlayer) {
+        Pair<WeakReference<InventoryCrafting>, ICraftingRecipe> last = lastCrafted.get();
+        lastCrafted.remove();
+        if (craftMatrix != null && last != null && last.getLeft().get() == craftMatrix) {
+            ICraftingRecipe recipe = last.getRight();
+            if (recipe.matches(inventory)) {
+                if (recipe.hasTransformers()) recipe.applyTransformers(inventory, byPlayer);
+                return;
+            }
+        }
+
+        for (ICraftingRecipe recipe : transformerIndex.getCandidates(inventory, crafted)) {
             if (recipe.matches(inventory)) {
                 recipe.applyTransformers(inventory, byPlayer);
                 return;
@@ -73,12 +108,23 @@ public final class MCRecipeManager implements IRecipeManager {
         }
     }
 
+    /**
+     * Records the recipe that computed a crafting result, so that its transformers can be applied without searching
+     * once the item is taken out.
+     *
+     * @param craftMatrix crafting matrix
+     * @param recipe      recipe that computed the result
+     */
+    public static void recordCraft(InventoryCrafting craftMatrix, ICraftingRecipe recipe) {
+        lastCrafted.set(Pair.of(new WeakReference<>(craftMatrix), recipe));
+    }
+
     private static boolean matches(Object input, IIngredient ingredient) {
         if ((input == null) != (ingredient == null)) {
             return false;
         } else if (ingredient != null) {
             if (input instanceof ItemStack) {
-                return ingredient.matches(getIItemStack((ItemStack) input));
+                return ingredient.matches(getIItemStackView((ItemStack) input));
             } else if (input instanceof String) {
                 return ingredient.contains(getOreDict((String) input));
             }
@@ -103,8 +149,9 @@ public final class MCRecipeManager implements IRecipeManager {
     public List<ICraftingRecipe> getRecipesFor(IIngredient ingredient) {
         List<ICraftingRecipe> results = new ArrayList<>();
 
-        for (IRecipe recipe : recipes) {
-            if (ingredient.matches(MineTweakerMC.getIItemStack(recipe.getRecipeOutput()))) {
+        Collection<IRecipe> candidates = recipeIndex.findByOutput(ingredient);
+        for (IRecipe recipe : candidates == null ? recipes : candidates) {
+            if (ingredient.matches(MineTweakerMC.getIItemStackView(recipe.getRecipeOutput()))) {
                 ICraftingRecipe converted = RecipeConverter.toCraftingRecipe(recipe);
                 results.add(converted);
             }
@@ -278,8 +325,38 @@ public final class MCRecipeManager implements IRecipeManager {
 
         public abstract Set<IRecipe> find();
 
+        /**
+         * Returns the output ingredient shared by all recipes this action removes, or null if there is no single one.
+         *
+         * @return output ingredient, or null
+         */
+        public IIngredient getOutput() {
+            return null;
+        }
+
         public void removeRecipes(Set<IRecipe> toRemove) {
-            recipes.removeIf(toRemove::contains);
+            removeFromRecipes(toRemove);
+        }
+
+        /**
+         * Returns the recipes that may match the given output and input, using whichever index lookup yields the fewest
+         * candidates. Falls back to the full recipe list if neither can be looked up.
+         *
+         * @param output output ingredient
+         * @param input  any ingredient the recipe must contain, or null
+         * @return candidate recipes
+         */
+        protected static Collection<IRecipe> getCandidates(IIngredient output, IIngredient input) {
+            Set<IRecipe> byOutput = recipeIndex.findByOutput(output);
+            Set<IRecipe> byInput = input == null ? null : recipeIndex.findByInput(input);
+
+            if (byOutput == null) {
+                return byInput == null ? recipes : byInput;
+            } else if (byInput == null || byOutput.size() <= byInput.size()) {
+                return byOutput;
+            } else {
+                return byInput;
+            }
         }
     }
 
@@ -300,15 +377,22 @@ public final class MCRecipeManager implements IRecipeManager {
         @Override
         public boolean matches(IRecipe r) {
             ItemStack recipeOutput = r.getRecipeOutput();
-            return recipeOutput != null && matches(getIItemStack(recipeOutput));
+            return recipeOutput != null && matches(getIItemStackView(recipeOutput));
         }
 
         @Override
         public Set<IRecipe> find() {
-            return recipes.parallelStream().filter(r -> {
-                ItemStack recipeOutput = r.getRecipeOutput();
-                return recipeOutput != null && matches(getIItemStack(recipeOutput));
-            }).collect(Collectors.toSet());
+            Collection<IRecipe> candidates = new LinkedHashSet<>();
+            for (Pair<IIngredient, Boolean> entry : outputs) {
+                Set<IRecipe> found = recipeIndex.findByOutput(entry.getKey());
+                if (found == null) {
+                    candidates = recipes;
+                    break;
+                }
+                candidates.addAll(found);
+            }
+
+            return candidates.parallelStream().filter(this::matches).collect(Collectors.toSet());
         }
 
         @Override
@@ -371,9 +455,14 @@ public final class MCRecipeManager implements IRecipeManager {
             this.wildcard = wildcard;
         }
 
+        @Override
+        public IIngredient getOutput() {
+            return output;
+        }
+
         @Override
         public boolean matches(IRecipe recipe) {
-            if (recipe.getRecipeOutput() == null || !output.matches(new MCItemStack(recipe.getRecipeOutput()))) {
+            if (recipe.getRecipeOutput() == null || !output.matches(MCItemStack.view(recipe.getRecipeOutput()))) {
                 return false;
             }
             if (recipe instanceof ShapedRecipes) {
@@ -428,8 +517,18 @@ public final class MCRecipeManager implements IRecipeManager {
 
         @Override
         public Set<IRecipe> find() {
+            IIngredient input = null;
+            if (ingredients != null) {
+                for (IIngredient ingredient : ingredients) {
+                    if (ingredient != null) {
+                        input = ingredient;
+                        break;
+                    }
+                }
+            }
+
             Set<IRecipe> toRemove = new HashSet<>();
-            for (IRecipe recipe : recipes) {
+            for (IRecipe recipe : getCandidates(output, input)) {
                 if (matches(recipe)) toRemove.add(recipe);
             }
             return toRemove;
@@ -499,10 +598,15 @@ public final class MCRecipeManager implements IRecipeManager {
             this.ingredientsHeight = ingredientsHeight;
         }
 
+        @Override
+        public IIngredient getOutput() {
+            return output;
+        }
+
         @Override
         public boolean matches(IRecipe recipe) {
             final ItemStack output = recipe.getRecipeOutput();
-            if (output == null || !this.output.matches(new MCItemStack(output))) {
+            if (output == null || !this.output.matches(MCItemStack.view(output))) {
                 return false;
             }
             if (!(recipe instanceof ShapedRecipes || recipe instanceof ShapedOreRecipe)) return false;
@@ -540,9 +644,20 @@ public final class MCRecipeManager implements IRecipeManager {
 
         @Override
         public Set<IRecipe> find() {
-            Set<IRecipe> toRemove = new HashSet<>();
+            IIngredient input = null;
+            if (ingredients != null) {
+                search: for (IIngredient[] row : ingredients) {
+                    for (IIngredient ingredient : row) {
+                        if (ingredient != null) {
+                            input = ingredient;
+                            break search;
+                        }
+                    }
+                }
+            }
 
-            for (final IRecipe recipe : recipes) {
+            Set<IRecipe> toRemove = new HashSet<>();
+            for (final IRecipe recipe : getCandidates(output, input)) {
                 if (matches(recipe)) toRemove.add(recipe);
             }
             return toRemove;
@@ -619,7 +734,11 @@ public final class MCRecipeManager implements IRecipeManager {
         @Override
         public void apply() {
             recipes.add(iRecipe);
-            if (craftingRecipe != null && craftingRecipe.hasTransformers()) transformerRecipes.add(craftingRecipe);
+            recipeIndex.add(iRecipe);
+            if (craftingRecipe != null && craftingRecipe.hasTransformers()) {
+                transformerRecipes.add(craftingRecipe);
+                transformerIndex.invalidate();
+            }
         }
 
         @Override
@@ -630,6 +749,9 @@ public final class MCRecipeManager implements IRecipeManager {
         @Override
         public void undo() {
             recipesToUndo.add(iRecipe);
+            if (craftingRecipe != null && transformerRecipes.remove(craftingRecipe)) {
+                transformerIndex.invalidate();
+            }
         }
 
         @Override
@@ -683,7 +805,7 @@ public final class MCRecipeManager implements IRecipeManager {
         @Override
         public void apply() {
             System.out.println("Removing " + recipes.size() + " recipes");
-            MCRecipeManager.recipes.removeIf(recipes::contains);
+            removeFromRecipes(recipes);
         }
 
         @Override
@@ -714,26 +836,29 @@ public final class MCRecipeManager implements IRecipeManager {
 
     public static void applyAdditionsAndRemovals() {
         System.out.println("MineTweaker: Applying additions and removals");
+        // other mods may have changed the recipe list since the last run
+        recipeIndex.invalidate();
         MineTweakerAPI.apply(MCRecipeManager.actionRemoveRecipesNoIngredients);
         if (recipesToUndo.size() > 0) {
-            recipes.removeIf(recipesToUndo::contains);
-        }
-        int commonPoolParallelism = getCommonPoolParallelism();
-        if (commonPoolParallelism <= 1) {
-            // if thread == 1, then we have parallel overhead but doesn't have parallel speedup.
-            // never do this
-            recipesToRemove.forEach(ActionBaseRemoveRecipes::apply);
-        } else try {
-            ThreadSafeBitSet removed = new ThreadSafeBitSet();
-            new FindRecipeToRemoveTask(removed, recipesToRemove).fork().get();
-            MineTweakerAPI.apply(
-                    new ActionBatchRemoveRecipe(
-                            removed.toBitSet().stream().mapToObj(recipes::get).collect(Collectors.toSet())));
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("MineTweaker: Parallel Removal failed. Falling back to sequential remove");
-            e.printStackTrace();
-            // try it sequentially
-            recipesToRemove.forEach(ActionBaseRemoveRecipes::apply);
+            removeFromRecipes(new HashSet<>(recipesToUndo));
+        }
+        // all removals are matched in a single pass over the recipe list; the result is kept in recipe list order so
+        // that undoing the removal restores the recipes in a reproducible order
+        RecipeRemovalMatcher matcher = new RecipeRemovalMatcher(recipesToRemove);
+        if (!matcher.isEmpty()) {
+            int commonPoolParallelism = getCommonPoolParallelism();
+            if (commonPoolParallelism <= 1) {
+                // if thread == 1, then we have parallel overhead but doesn't have parallel speedup.
+                // never do this
+                MineTweakerAPI.apply(new ActionBatchRemoveRecipe(matcher.find(recipes)));
+            } else try {
+                MineTweakerAPI.apply(new ActionBatchRemoveRecipe(matcher.findParallel(recipes)));
+            } catch (InterruptedException | ExecutionException e) {
+                System.err.println("MineTweaker: Parallel Removal failed. Falling back to sequential remove");
+                e.printStackTrace();
+                // try it sequentially
+                recipesToRemove.forEach(ActionBaseRemoveRecipes::apply);
+            }
         }
         MCRecipeManager.recipesToAdd.forEach(MineTweakerAPI::apply);
 
@@ -743,6 +868,11 @@ public final class MCRecipeManager implements IRecipeManager {
         recipesToUndo.clear();
     }
 
+    private static void removeFromRecipes(Set<IRecipe> toRemove) {
+        recipes.removeIf(toRemove::contains);
+        recipeIndex.removeAll(toRemove);
+    }
+
     private static int getCommonPoolParallelism() {
         return Integer.getInteger(
                 "java.util.concurrent.ForkJoinPool.common.parallelism",
@@ -765,43 +895,4 @@ public final class MCRecipeManager implements IRecipeManager {
             return false;
         }
     }
-
-    /**
-     * A ForkJoinTask to find recipes to remove. Slightly more performant than parallelStream().
-     */
-    private static class FindRecipeToRemoveTask extends RecursiveAction {
-
-        private final ThreadSafeBitSet removed;
-        private final List<ActionBaseRemoveRecipes> workList;
-
-        public FindRecipeToRemoveTask(ThreadSafeBitSet removed, List<ActionBaseRemoveRecipes> workList) {
-            this.removed = removed;
-            this.workList = workList;
-        }
-
-        @Override
-        protected void compute() {
-            if (workList.isEmpty()) return;
-            if (workList.size() < 50) {
-                for (int i = 0; i < recipes.size(); i++) {
-                    if (removed.get(i)) continue;
-                    IRecipe recipe = recipes.get(i);
-                    for (ActionBaseRemoveRecipes r : workList) {
-                        if (r.matches(recipe)) {
-                            removed.set(i);
-                            break;
-                        }
-                    }
-                }
-            } else {
-                FindRecipeToRemoveTask left = new FindRecipeToRemoveTask(
-                        removed,
-                        workList.subList(0, workList.size() / 2));
-                left.fork();
-                new FindRecipeToRemoveTask(removed, workList.subList(workList.size() / 2, workList.size())).fork()
-                        .join();
-                left.join();
-            }
-        }
-    }
 }
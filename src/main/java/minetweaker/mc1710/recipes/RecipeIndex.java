@@ -0,0 +1,252 @@
+package minetweaker.mc1710.recipes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraftforge.oredict.OreDictionary;
+import net.minecraftforge.oredict.ShapedOreRecipe;
+import net.minecraftforge.oredict.ShapelessOreRecipe;
+
+import minetweaker.api.item.IIngredient;
+import minetweaker.api.item.IItemStack;
+import minetweaker.api.liquid.ILiquidStack;
+
+/**
+ * Index over {@link MCRecipeManager#recipes}, keyed by output item and damage, and by input item.
+ * <p>
+ * Lookups only return candidates - a superset of the recipes that can match - so callers still have to run their own
+ * matching on the result. A lookup returns null if the ingredient cannot be keyed (wildcards, liquids), in which case
+ * the caller has to scan the full recipe list instead.
+ * <p>
+ * The index is updated by the recipe manager actions. Changes made to the recipe list by other mods cannot be detected,
+ * so the recipe manager invalidates the index every time it applies its additions and removals, which happens before
+ * and after each script load; the index is also rebuilt if the recipe list itself is replaced. Not thread-safe; lookups
+ * and updates must happen on the thread applying the scripts.
+ */
+public class RecipeIndex {
+
+    private final Map<Item, Map<Integer, Set<IRecipe>>> byOutput = new HashMap<>();
+    private final Map<Item, Set<IRecipe>> byInputItem = new HashMap<>();
+    /** Recipes with at least one ore dictionary input; these are returned for every input lookup. */
+    private final Set<IRecipe> byInputOre = new LinkedHashSet<>();
+    private final Set<IRecipe> live = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private List<IRecipe> indexed = null;
+
+    /**
+     * Registers a recipe that has just been added to the recipe list.
+     *
+     * @param recipe added recipe
+     */
+    public void add(IRecipe recipe) {
+        if (isBuilt()) insert(recipe);
+    }
+
+    /**
+     * Unregisters recipes that have just been removed from the recipe list.
+     *
+     * @param recipes removed recipes
+     */
+    public void removeAll(Iterable<IRecipe> recipes) {
+        if (!isBuilt()) return;
+
+        for (IRecipe recipe : recipes) {
+            remove(recipe);
+        }
+    }
+
+    /**
+     * Forces a rebuild on the next lookup.
+     */
+    public void invalidate() {
+        indexed = null;
+    }
+
+    /**
+     * Finds all recipes whose output could match the given ingredient.
+     *
+     * @param output output ingredient
+     * @return candidate recipes, or null if the ingredient cannot be looked up in the index
+     */
+    public Set<IRecipe> findByOutput(IIngredient output) {
+        List<ItemStack> keys = getKeys(output);
+        if (keys == null) return null;
+
+        ensureBuilt();
+
+        Set<IRecipe> result = new LinkedHashSet<>();
+        for (ItemStack key : keys) {
+            Map<Integer, Set<IRecipe>> byDamage = byOutput.get(key.getItem());
+            if (byDamage == null) continue;
+
+            int damage = key.getItemDamage();
+            if (damage == OreDictionary.WILDCARD_VALUE || !key.getHasSubtypes()) {
+                for (Set<IRecipe> bucket : byDamage.values()) {
+                    addLive(result, bucket);
+                }
+            } else {
+                addLive(result, byDamage.get(damage));
+                addLive(result, byDamage.get(OreDictionary.WILDCARD_VALUE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds all recipes that could have an input matching the given ingredient, as matched by the recipe removal
+     * actions. Recipes with ore dictionary inputs are always included, since those inputs are matched leniently.
+     *
+     * @param input input ingredient
+     * @return candidate recipes, or null if the ingredient cannot be looked up in the index
+     */
+    public Set<IRecipe> findByInput(IIngredient input) {
+        List<ItemStack> keys = getKeys(input);
+        if (keys == null) return null;
+
+        ensureBuilt();
+
+        Set<IRecipe> result = new LinkedHashSet<>();
+        for (ItemStack key : keys) {
+            addLive(result, byInputItem.get(key.getItem()));
+        }
+        addLive(result, byInputOre);
+        return result;
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private boolean isBuilt() {
+        return indexed != null && indexed == MCRecipeManager.recipes;
+    }
+
+    private void ensureBuilt() {
+        if (isBuilt()) return;
+
+        byOutput.clear();
+        byInputItem.clear();
+        byInputOre.clear();
+        live.clear();
+
+        for (IRecipe recipe : MCRecipeManager.recipes) {
+            insert(recipe);
+        }
+
+        indexed = MCRecipeManager.recipes;
+    }
+
+    private void insert(IRecipe recipe) {
+        if (recipe == null) return;
+        live.add(recipe);
+
+        ItemStack output = recipe.getRecipeOutput();
+        if (output != null && output.getItem() != null) {
+            byOutput.computeIfAbsent(output.getItem(), k -> new HashMap<>())
+                    .computeIfAbsent(output.getItemDamage(), k -> new LinkedHashSet<>()).add(recipe);
+        }
+
+        for (Object input : getInputs(recipe)) {
+            if (input instanceof ItemStack) {
+                Item item = ((ItemStack) input).getItem();
+                if (item != null) {
+                    byInputItem.computeIfAbsent(item, k -> new LinkedHashSet<>()).add(recipe);
+                }
+            } else if (input != null) {
+                byInputOre.add(recipe);
+            }
+        }
+    }
+
+    private void remove(IRecipe recipe) {
+        if (recipe == null || !live.remove(recipe)) return;
+
+        ItemStack output = recipe.getRecipeOutput();
+        if (output != null && output.getItem() != null) {
+            Map<Integer, Set<IRecipe>> byDamage = byOutput.get(output.getItem());
+            if (byDamage != null) {
+                removeFrom(byDamage, output.getItemDamage(), recipe);
+                if (byDamage.isEmpty()) byOutput.remove(output.getItem());
+            }
+        }
+
+        for (Object input : getInputs(recipe)) {
+            if (input instanceof ItemStack) {
+                removeFrom(byInputItem, ((ItemStack) input).getItem(), recipe);
+            }
+        }
+        byInputOre.remove(recipe);
+    }
+
+    private void addLive(Set<IRecipe> result, Set<IRecipe> bucket) {
+        if (bucket == null) return;
+
+        for (IRecipe recipe : bucket) {
+            // entries may go stale if a recipe changed its output after being indexed
+            if (live.contains(recipe)) result.add(recipe);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<IRecipe>> map, K key, IRecipe recipe) {
+        if (key == null) return;
+
+        Set<IRecipe> bucket = map.get(key);
+        if (bucket != null) {
+            bucket.remove(recipe);
+            if (bucket.isEmpty()) map.remove(key);
+        }
+    }
+
+    /**
+     * Only the recipe types handled by the removal actions are indexed by input; other recipes never match a removal
+     * by ingredients.
+     */
+    private static Iterable<?> getInputs(IRecipe recipe) {
+        if (recipe instanceof ShapedRecipes) {
+            return Arrays.asList(((ShapedRecipes) recipe).recipeItems);
+        } else if (recipe instanceof ShapelessRecipes) {
+            return ((ShapelessRecipes) recipe).recipeItems;
+        } else if (recipe instanceof ShapedOreRecipe) {
+            return Arrays.asList(((ShapedOreRecipe) recipe).getInput());
+        } else if (recipe instanceof ShapelessOreRecipe) {
+            return ((ShapelessOreRecipe) recipe).getInput();
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns the item stacks an ingredient can be looked up by, or null if the ingredient cannot be keyed.
+     *
+     * @param ingredient ingredient
+     * @return lookup keys, or null
+     */
+    static List<ItemStack> getKeys(IIngredient ingredient) {
+        if (ingredient == null) return null;
+
+        List<IItemStack> items = ingredient.getItems();
+        List<ILiquidStack> liquids = ingredient.getLiquids();
+        if (items == null || liquids == null || !liquids.isEmpty()) return null;
+
+        List<ItemStack> keys = new ArrayList<>(items.size());
+        for (IItemStack item : items) {
+            Object internal = item.getInternal();
+            if (!(internal instanceof ItemStack) || ((ItemStack) internal).getItem() == null) return null;
+
+            keys.add((ItemStack) internal);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,140 @@
+package minetweaker.mc1710.recipes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RecursiveAction;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipe;
+
+import minetweaker.mc1710.recipes.MCRecipeManager.ActionBaseRemoveRecipes;
+import minetweaker.mc1710.util.ThreadSafeBitSet;
+
+/**
+ * Compiles all pending recipe removals into a dispatch table keyed by output item, so that every recipe is checked
+ * once, and only against the removals that could apply to it. Removals with an output that cannot be keyed are checked
+ * against every recipe.
+ */
+public class RecipeRemovalMatcher {
+
+    /**
+     * Number of recipes checked by a single leaf task.
+     */
+    private static final int LEAF_SIZE = 2048;
+
+    private final Map<Item, List<ActionBaseRemoveRecipes>> byOutput = new HashMap<>();
+    private final List<ActionBaseRemoveRecipes> unkeyed = new ArrayList<>();
+
+    public RecipeRemovalMatcher(List<ActionBaseRemoveRecipes> actions) {
+        for (ActionBaseRemoveRecipes action : actions) {
+            List<ItemStack> keys = RecipeIndex.getKeys(action.getOutput());
+            if (keys == null) {
+                unkeyed.add(action);
+                continue;
+            }
+
+            Set<Item> items = new LinkedHashSet<>();
+            for (ItemStack key : keys) {
+                items.add(key.getItem());
+            }
+            for (Item item : items) {
+                byOutput.computeIfAbsent(item, k -> new ArrayList<>()).add(action);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return byOutput.isEmpty() && unkeyed.isEmpty();
+    }
+
+    /**
+     * Checks if any of the compiled removals matches the given recipe.
+     *
+     * @param recipe recipe to check
+     * @return true if the recipe is to be removed
+     */
+    public boolean matches(IRecipe recipe) {
+        ItemStack output = recipe.getRecipeOutput();
+        if (output == null) return false;
+
+        List<ActionBaseRemoveRecipes> candidates = byOutput.getOrDefault(output.getItem(), Collections.emptyList());
+        for (ActionBaseRemoveRecipes action : candidates) {
+            if (action.matches(recipe)) return true;
+        }
+        for (ActionBaseRemoveRecipes action : unkeyed) {
+            if (action.matches(recipe)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Finds all recipes to remove on the calling thread.
+     *
+     * @param recipes recipe list
+     * @return matched recipes, in recipe list order
+     */
+    public Set<IRecipe> find(List<IRecipe> recipes) {
+        Set<IRecipe> result = new LinkedHashSet<>();
+        for (IRecipe recipe : recipes) {
+            if (matches(recipe)) result.add(recipe);
+        }
+        return result;
+    }
+
+    /**
+     * Finds all recipes to remove, splitting the recipe list over the common fork join pool.
+     *
+     * @param recipes recipe list, which must not be modified while the search is running
+     * @return matched recipes, in recipe list order
+     */
+    public Set<IRecipe> findParallel(List<IRecipe> recipes) throws InterruptedException, ExecutionException {
+        ThreadSafeBitSet removed = new ThreadSafeBitSet();
+        new FindRecipeToRemoveTask(removed, recipes, 0, recipes.size()).fork().get();
+
+        Set<IRecipe> result = new LinkedHashSet<>();
+        for (int i = removed.nextSetBit(0); i >= 0; i = removed.nextSetBit(i + 1)) {
+            result.add(recipes.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * A ForkJoinTask marking the recipes to remove within a range of the recipe list.
+     */
+    private class FindRecipeToRemoveTask extends RecursiveAction {
+
+        private final ThreadSafeBitSet removed;
+        private final List<IRecipe> recipes;
+        private final int from;
+        private final int to;
+
+        public FindRecipeToRemoveTask(ThreadSafeBitSet removed, List<IRecipe> recipes, int from, int to) {
+            this.removed = removed;
+            this.recipes = recipes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    if (matches(recipes.get(i))) removed.set(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new FindRecipeToRemoveTask(removed, recipes, from, middle),
+                        new FindRecipeToRemoveTask(removed, recipes, middle, to));
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class ShapedRecipeAdvanced implements IRecipe {
 
     @Override
     public ItemStack getCraftingResult(InventoryCrafting inventory) {
+        MCRecipeManager.recordCraft(inventory, recipe);
         return getItemStack(recipe.getCraftingResult(MCCraftingInventory.get(inventory))).copy();
     }
 
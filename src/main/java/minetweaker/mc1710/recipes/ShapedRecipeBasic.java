@@ -36,6 +36,7 @@ public class ShapedRecipeBasic extends ShapedRecipes {
 
     @Override
     public ItemStack getCraftingResult(InventoryCrafting inventory) {
+        MCRecipeManager.recordCraft(inventory, recipe);
         IItemStack result = recipe.getCraftingResult(MCCraftingInventory.get(inventory));
         if (result == null) {
             return null;
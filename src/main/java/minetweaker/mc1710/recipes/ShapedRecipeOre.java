@@ -36,6 +36,7 @@ public class ShapedRecipeOre extends ShapedOreRecipe {
     @Override
     public ItemStack getCraftingResult(InventoryCrafting inventory) {
         if (recipe != null) {
+            MCRecipeManager.recordCraft(inventory, recipe);
             if (recipe.getCraftingResult(MCCraftingInventory.get(inventory)) != null) {
                 return getItemStack(recipe.getCraftingResult(MCCraftingInventory.get(inventory))).copy();
             }
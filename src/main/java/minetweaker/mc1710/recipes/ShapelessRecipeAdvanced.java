@@ -33,6 +33,7 @@ public class ShapelessRecipeAdvanced implements IRecipe {
 
     @Override
     public ItemStack getCraftingResult(InventoryCrafting inventory) {
+        MCRecipeManager.recordCraft(inventory, recipe);
         return getItemStack(recipe.getCraftingResult(MCCraftingInventory.get(inventory))).copy();
     }
 
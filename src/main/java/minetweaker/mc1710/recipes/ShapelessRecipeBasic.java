@@ -37,6 +37,7 @@ public class ShapelessRecipeBasic extends ShapelessRecipes {
 
     @Override
     public ItemStack getCraftingResult(InventoryCrafting inventory) {
+        MCRecipeManager.recordCraft(inventory, recipe);
         return getItemStack(recipe.getCraftingResult(MCCraftingInventory.get(inventory))).copy();
     }
 }
@@ -35,6 +35,7 @@ public class ShapelessRecipeOre extends ShapelessOreRecipe {
 
     @Override
     public ItemStack getCraftingResult(InventoryCrafting inventory) {
+        MCRecipeManager.recordCraft(inventory, recipe);
         return getItemStack(recipe.getCraftingResult(MCCraftingInventory.get(inventory))).copy();
     }
 }
@@ -0,0 +1,199 @@
+package minetweaker.mc1710.recipes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import minetweaker.api.item.IIngredient;
+import minetweaker.api.item.IItemStack;
+import minetweaker.api.recipes.ICraftingInventory;
+import minetweaker.api.recipes.ICraftingRecipe;
+import minetweaker.api.recipes.ShapedRecipe;
+import minetweaker.api.recipes.ShapelessRecipe;
+
+/**
+ * Index over {@link MCRecipeManager#transformerRecipes}, so that a craft only tries the few transformer recipes that
+ * could have produced it.
+ * <p>
+ * Recipes without a recipe function always craft their declared output and are keyed by output item. Other recipes are
+ * keyed by their rarest ingredient item, which must be present in the grid for the recipe to match. Recipes without a
+ * fixed output and without an ingredient backed by a single item are tried on every craft.
+ */
+public class TransformerRecipeIndex {
+
+    private final Map<Item, List<Integer>> byOutput = new HashMap<>();
+    private final Map<Item, List<Integer>> byIngredient = new HashMap<>();
+    private final List<Integer> unkeyed = new ArrayList<>();
+
+    private boolean built = false;
+    private int indexedSize = 0;
+
+    /**
+     * Forces a rebuild on the next lookup. Must be called whenever the transformer recipe list changes.
+     */
+    public void invalidate() {
+        built = false;
+    }
+
+    /**
+     * Returns the transformer recipes that could match the given craft, in transformer list order.
+     *
+     * @param inventory crafting inventory
+     * @param crafted   crafted item, or null if unknown
+     * @return candidate recipes
+     */
+    public List<ICraftingRecipe> getCandidates(ICraftingInventory inventory, ItemStack crafted) {
+        List<ICraftingRecipe> recipes = MCRecipeManager.transformerRecipes;
+        if (crafted == null || crafted.getItem() == null) return recipes;
+
+        ensureBuilt();
+
+        // positions are kept sorted so that the first matching recipe is the same as with a linear scan
+        Set<Integer> positions = new TreeSet<>(unkeyed);
+        addAll(positions, byOutput.get(crafted.getItem()));
+
+        if (!byIngredient.isEmpty()) {
+            for (int i = 0; i < inventory.getSize(); i++) {
+                IItemStack stack = inventory.getStack(i);
+                if (stack != null && stack.getInternal() instanceof ItemStack) {
+                    addAll(positions, byIngredient.get(((ItemStack) stack.getInternal()).getItem()));
+                }
+            }
+        }
+
+        List<ICraftingRecipe> result = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            result.add(recipes.get(position));
+        }
+        return result;
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void ensureBuilt() {
+        List<ICraftingRecipe> recipes = MCRecipeManager.transformerRecipes;
+        if (built && indexedSize == recipes.size()) return;
+
+        byOutput.clear();
+        byIngredient.clear();
+        unkeyed.clear();
+
+        // first pass: key by output, and count how often each ingredient item occurs in the remaining recipes
+        Map<Integer, List<Set<Item>>> keyableIngredients = new TreeMap<>();
+        Map<Item, Integer> frequencies = new HashMap<>();
+        for (int i = 0; i < recipes.size(); i++) {
+            ICraftingRecipe recipe = recipes.get(i);
+            Item output = getFixedOutput(recipe);
+            if (output != null) {
+                byOutput.computeIfAbsent(output, k -> new ArrayList<>()).add(i);
+                continue;
+            }
+
+            List<Set<Item>> ingredientItems = new ArrayList<>();
+            for (IIngredient ingredient : getIngredients(recipe)) {
+                Set<Item> items = getStableItems(ingredient);
+                if (items == null) continue;
+
+                ingredientItems.add(items);
+                for (Item item : items) {
+                    frequencies.merge(item, 1, Integer::sum);
+                }
+            }
+            keyableIngredients.put(i, ingredientItems);
+        }
+
+        // second pass: key the remaining recipes by their rarest ingredient
+        for (Map.Entry<Integer, List<Set<Item>>> entry : keyableIngredients.entrySet()) {
+            Set<Item> rarest = null;
+            int rarestFrequency = Integer.MAX_VALUE;
+            for (Set<Item> items : entry.getValue()) {
+                int frequency = 0;
+                for (Item item : items) {
+                    frequency += frequencies.get(item);
+                }
+                if (frequency < rarestFrequency) {
+                    rarest = items;
+                    rarestFrequency = frequency;
+                }
+            }
+
+            if (rarest == null) {
+                unkeyed.add(entry.getKey());
+            } else {
+                for (Item item : rarest) {
+                    byIngredient.computeIfAbsent(item, k -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+        }
+
+        indexedSize = recipes.size();
+        built = true;
+    }
+
+    private static void addAll(Set<Integer> positions, List<Integer> bucket) {
+        if (bucket != null) positions.addAll(bucket);
+    }
+
+    private static Item getFixedOutput(ICraftingRecipe recipe) {
+        IItemStack output;
+        if (recipe instanceof ShapedRecipe) {
+            ShapedRecipe shaped = (ShapedRecipe) recipe;
+            if (shaped.getFunction() != null) return null;
+            output = shaped.getOutput();
+        } else if (recipe instanceof ShapelessRecipe) {
+            ShapelessRecipe shapeless = (ShapelessRecipe) recipe;
+            if (shapeless.getFunction() != null) return null;
+            output = shapeless.getOutput();
+        } else {
+            return null;
+        }
+
+        if (output == null || !(output.getInternal() instanceof ItemStack)) return null;
+        return ((ItemStack) output.getInternal()).getItem();
+    }
+
+    private static List<IIngredient> getIngredients(ICraftingRecipe recipe) {
+        IIngredient[] ingredients;
+        if (recipe instanceof ShapedRecipe) {
+            ingredients = ((ShapedRecipe) recipe).getIngredients();
+        } else if (recipe instanceof ShapelessRecipe) {
+            ingredients = ((ShapelessRecipe) recipe).getIngredients();
+        } else {
+            return Collections.emptyList();
+        }
+
+        List<IIngredient> result = new ArrayList<>(ingredients.length);
+        for (IIngredient ingredient : ingredients) {
+            if (ingredient != null) result.add(ingredient);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the items of an ingredient backed by a single item stack. Ore dictionary entries are not used as keys,
+     * since their contents may change after the index has been built.
+     */
+    private static Set<Item> getStableItems(IIngredient ingredient) {
+        if (!(ingredient.getInternal() instanceof ItemStack)) return null;
+
+        List<ItemStack> keys = RecipeIndex.getKeys(ingredient);
+        if (keys == null || keys.isEmpty()) return null;
+
+        Set<Item> items = new LinkedHashSet<>();
+        for (ItemStack key : keys) {
+            items.add(key.getItem());
+        }
+        return items;
+    }
+}
@@ -21,6 +21,7 @@ import net.minecraft.inventory.Container;
 import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.inventory.SlotCrafting;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.FurnaceRecipes;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.server.MinecraftServer;
@@ -128,6 +129,10 @@ public class MineTweakerHacks {
         return getPrivateStaticObject(ChestGenHooks.class, "chestInfo");
     }
 
+    public static Map<ItemStack, Float> getFurnaceExperience() {
+        return getPrivateObject(FurnaceRecipes.smelting(), "experienceList", "field_77605_c");
+    }
+
     public static Map getTranslations() {
         return getPrivateObject(
                 getPrivateStaticObject(StatCollector.class, "localizedName", "field_74839_a"),
@@ -113,7 +113,7 @@ public class MCSeedRegistry implements ISeedRegistry {
 
             for (Object entry : SEEDS) {
                 ItemStack itemStack = MineTweakerHacks.getSeedEntrySeed(entry);
-                if (pattern.matches(MineTweakerMC.getIItemStack(itemStack))) {
+                if (pattern.matches(MineTweakerMC.getIItemStackView(itemStack))) {
                     removed.add(entry);
                 }
             }
@@ -8,7 +8,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraftforge.oredict.OreDictionary;
 
 import ic2.api.item.IC2Items;
-import minetweaker.IBracketHandler;
+import minetweaker.IPrefixedBracketHandler;
 import minetweaker.MineTweakerAPI;
 import minetweaker.annotations.BracketHandler;
 import minetweaker.annotations.ModOnly;
@@ -32,7 +32,7 @@ import stanhebben.zenscript.util.ZenPosition;
  */
 @BracketHandler
 @ModOnly("IC2")
-public class IC2BracketHandler implements IBracketHandler {
+public class IC2BracketHandler implements IPrefixedBracketHandler {
 
     public static IItemStack getItem(String name, int meta) {
         ItemStack stack = IC2Items.getItem(name);
@@ -46,6 +46,11 @@ public class IC2BracketHandler implements IBracketHandler {
         method = MineTweakerAPI.getJavaMethod(IC2BracketHandler.class, "getItem", String.class, int.class);
     }
 
+    @Override
+    public String getBracketPrefix() {
+        return "ic2";
+    }
+
     @Override
     public IZenSymbol resolve(IEnvironmentGlobal environment, List<Token> tokens) {
         if (tokens.size() >= 5) {
@@ -5,10 +5,10 @@
 
 package minetweaker.mods.ic2;
 
-import static minetweaker.api.minecraft.MineTweakerMC.getIItemStack;
 import static minetweaker.api.minecraft.MineTweakerMC.getItemStack;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import net.minecraft.item.ItemStack;
@@ -16,23 +16,40 @@ import net.minecraft.item.ItemStack;
 import ic2.api.recipe.IRecipeInput;
 import minetweaker.api.item.IIngredient;
 import minetweaker.api.item.IItemStack;
+import minetweaker.mc1710.item.MCItemStack;
+import minetweaker.mc1710.oredict.MCOreDictEntry;
 
 /**
  * Wrapper class for ITweakerItemStackPatterns to IC2 recipe inputs.
+ * <p>
+ * IC2 machines match their input slot against every recipe input whenever they check their input, so item stack and
+ * ore dictionary ingredients are matched directly against the raw stack, without wrapping it. The expanded inputs of a
+ * plain item stack are computed once and shared; those of other ingredients can change with the ore dictionary and are
+ * computed on every call.
  * 
  * @author Stan Hebben
  */
 public class IC2RecipeInput implements IRecipeInput {
 
     private final IIngredient ingredient;
+    private final MCItemStack itemPattern;
+    private final MCOreDictEntry orePattern;
+    private final List<ItemStack> itemInputs;
 
     public IC2RecipeInput(IIngredient ingredient) {
         this.ingredient = ingredient;
+        this.itemPattern = ingredient instanceof MCItemStack ? (MCItemStack) ingredient : null;
+        this.orePattern = ingredient instanceof MCOreDictEntry ? (MCOreDictEntry) ingredient : null;
+        this.itemInputs = itemPattern != null ? Collections.unmodifiableList(expandInputs()) : null;
     }
 
     @Override
     public boolean matches(ItemStack subject) {
-        return ingredient.matches(getIItemStack(subject));
+        if (subject == null) return false;
+        if (itemPattern != null) return itemPattern.matches(subject);
+        if (orePattern != null) return orePattern.contains(subject);
+
+        return ingredient.matches(MCItemStack.view(subject));
     }
 
     @Override
@@ -42,11 +59,7 @@ public class IC2RecipeInput implements IRecipeInput {
 
     @Override
     public List<ItemStack> getInputs() {
-        List<ItemStack> items = new ArrayList<ItemStack>();
-        for (IItemStack item : ingredient.getItems()) {
-            items.add(getItemStack(item));
-        }
-        return items;
+        return itemInputs != null ? itemInputs : expandInputs();
     }
 
     @Override
@@ -71,4 +84,12 @@ public class IC2RecipeInput implements IRecipeInput {
         }
         return true;
     }
+
+    private List<ItemStack> expandInputs() {
+        List<ItemStack> result = new ArrayList<ItemStack>();
+        for (IItemStack item : ingredient.getItems()) {
+            result.add(getItemStack(item));
+        }
+        return result;
+    }
 }
@@ -88,6 +88,9 @@ public class CropsConfig {
 
         @Override
         public void apply() {
+            if (c instanceof SyntheticCrop) {
+                ((SyntheticCrop) c).freezeReqs();
+            }
             Crops.instance.registerCrop(c);
         }
     }
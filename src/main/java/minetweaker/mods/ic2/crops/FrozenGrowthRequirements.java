@@ -0,0 +1,46 @@
+package minetweaker.mods.ic2.crops;
+
+import net.minecraft.block.Block;
+
+import ic2.api.crops.ICropTile;
+import minetweaker.api.minecraft.MineTweakerMC;
+
+/**
+ * Growth requirements resolved for crop ticks. The required block is looked up once and all thresholds are copied, so
+ * later changes to the {@link GrowthRequirements} they were created from have no effect.
+ */
+public final class FrozenGrowthRequirements {
+
+    private final Block requiredBlock;
+    private final int minNutrients;
+    private final int minHumidity;
+    private final int minAirQuality;
+    private final int minLight;
+    private final int maxLight;
+
+    public FrozenGrowthRequirements(GrowthRequirements reqs) {
+        requiredBlock = reqs.getRequiredBlock() == null ? null : MineTweakerMC.getBlock(reqs.getRequiredBlock());
+        minNutrients = reqs.getMinNutrients();
+        minHumidity = reqs.getMinHumidity();
+        minAirQuality = reqs.getMinAirQuality();
+        minLight = reqs.getMinLight();
+        maxLight = reqs.getMaxLight();
+    }
+
+    /**
+     * Checks if the given crop meets these requirements.
+     *
+     * @param crop crop tile
+     * @return true if the crop can grow
+     */
+    public boolean canGrow(ICropTile crop) {
+        if (crop.getAirQuality() < minAirQuality) return false;
+        if (crop.getHumidity() < minHumidity) return false;
+        if (crop.getNutrients() < minNutrients) return false;
+
+        int light = crop.getLightLevel();
+        if (minLight >= light || maxLight <= light) return false;
+
+        return requiredBlock == null || crop.isBlockBelow(requiredBlock);
+    }
+}
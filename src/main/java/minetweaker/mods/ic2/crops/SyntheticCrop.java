@@ -47,6 +47,7 @@ public class SyntheticCrop extends CropCard {
     private IItemStack fruit;
 
     private GrowthRequirements reqs;
+    private volatile FrozenGrowthRequirements frozenReqs;
 
     /**
      * Create a new synthetic crop
@@ -145,18 +146,11 @@ public class SyntheticCrop extends CropCard {
         } else if (reqs == null) {
             return true;
         } else {
-            if (!crop.isBlockBelow(MineTweakerMC.getBlock(reqs.getRequiredBlock()))) {
-                return false;
-            } else if (crop.getAirQuality() < reqs.getMinAirQuality()) {
-                return false;
-            } else if (crop.getHumidity() < reqs.getMinHumidity()) {
-                return false;
-            } else if (crop.getNutrients() < reqs.getMinNutrients()) {
-                return false;
-            } else {
-                int lgh = crop.getLightLevel();
-                return reqs.getMinLight() < lgh && reqs.getMaxLight() > lgh;
+            FrozenGrowthRequirements frozen = frozenReqs;
+            if (frozen == null) {
+                frozen = freezeReqs();
             }
+            return frozen.canGrow(crop);
         }
     }
 
@@ -277,6 +271,19 @@ public class SyntheticCrop extends CropCard {
      */
     public void setReqs(GrowthRequirements reqs) {
         this.reqs = reqs;
+        this.frozenReqs = null;
+    }
+
+    /**
+     * Resolves the current growth requirements for crop ticks. Called when the crop is registered; changes made to
+     * the requirements afterwards only take effect when they are set again.
+     *
+     * @return the resolved requirements, or null if this crop has no requirements
+     */
+    public FrozenGrowthRequirements freezeReqs() {
+        FrozenGrowthRequirements frozen = reqs == null ? null : new FrozenGrowthRequirements(reqs);
+        frozenReqs = frozen;
+        return frozen;
     }
 
 }
@@ -7,11 +7,13 @@ package minetweaker.runtime;
 
 import java.lang.annotation.*;
 import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.logging.*;
 
 import minetweaker.*;
 import minetweaker.api.item.*;
+import minetweaker.util.HashUtil;
 import stanhebben.zenscript.*;
 import stanhebben.zenscript.annotations.*;
 import stanhebben.zenscript.compiler.*;
@@ -31,11 +33,16 @@ public class GlobalRegistry {
     private static final Map<String, IZenSymbol> globals = new HashMap<String, IZenSymbol>();
     private static final List<IRecipeRemover> removers = new ArrayList<IRecipeRemover>();
     private static final List<IBracketHandler> bracketHandlers = new ArrayList<IBracketHandler>();
+    private static final Map<String, IBracketHandler[]> bracketHandlersByPrefix = new HashMap<>();
+    private static final IBracketHandler[] NO_BRACKET_HANDLERS = new IBracketHandler[0];
+    private static IBracketHandler[] unprefixedBracketHandlers = NO_BRACKET_HANDLERS;
+    private static Map<String, IZenSymbol> resolvedBrackets = new HashMap<>();
     private static final TypeRegistry types = new TypeRegistry();
     private static final SymbolPackage root = new SymbolPackage("<root>");
     private static final IZenErrorLogger errors = new MyErrorLogger();
     private static final IZenCompileEnvironment environment = new MyCompileEnvironment();
     private static final Map<String, TypeExpansion> expansions = new HashMap<String, TypeExpansion>();
+    private static final List<String> registrations = new ArrayList<String>();
 
     static {
         registerGlobal("print", getStaticFunction(GlobalFunctions.class, "print", String.class));
@@ -57,6 +64,7 @@ public class GlobalRegistry {
         }
 
         globals.put(name, symbol);
+        addRegistration("global:" + name);
     }
 
     public static void registerExpansion(Class<?> cls) {
@@ -70,6 +78,7 @@ public class GlobalRegistry {
                     expansions.get(eAnnotation.value()).expand(cls, types);
                 }
             }
+            addRegistration("expansion:" + cls.getName() + ":" + getFingerprint(cls));
         } catch (Throwable ex) {
             errors.error("Error while applying expansion", ex);
             ex.printStackTrace();
@@ -80,8 +89,10 @@ public class GlobalRegistry {
         removers.add(remover);
     }
 
-    public static void registerBracketHandler(IBracketHandler handler) {
+    public static synchronized void registerBracketHandler(IBracketHandler handler) {
         bracketHandlers.add(handler);
+        addRegistration("bracket:" + handler.getClass().getName());
+        indexBracketHandlers();
     }
 
     public static void registerNativeClass(Class<?> cls) {
@@ -92,12 +103,23 @@ public class GlobalRegistry {
             type.complete(types);
 
             root.put(type.getName(), new SymbolType(type), errors);
+            addRegistration("class:" + cls.getName() + ":" + getFingerprint(cls));
         } catch (Throwable ex) {
             MineTweakerAPI.logError("Error for " + cls, ex);
             ex.printStackTrace();
         }
     }
 
+    /**
+     * Returns everything registered for script compilation: globals, native classes, expansions and bracket handlers,
+     * in registration order. Compiled scripts can only be reused if these did not change.
+     *
+     * @return registrations
+     */
+    public static List<String> getRegistrations() {
+        return Collections.unmodifiableList(registrations);
+    }
+
     public static TypeRegistry getTypeRegistry() {
         return types;
     }
@@ -108,15 +130,37 @@ public class GlobalRegistry {
         }
     }
 
-    public static IZenSymbol resolveBracket(IEnvironmentGlobal environment, List<Token> tokens) {
-        for (IBracketHandler handler : bracketHandlers) {
+    /**
+     * Resolves a bracket. Only the handlers registered for the first token of the bracket and the handlers without a
+     * prefix are tried, in registration order. Results are memoized until the next global environment is created, so
+     * repeated brackets in a script group are only resolved once.
+     *
+     * @param environment compilation environment
+     * @param tokens      bracket tokens
+     * @return the resolved symbol, or null
+     */
+    public static synchronized IZenSymbol resolveBracket(IEnvironmentGlobal environment, List<Token> tokens) {
+        String key = getBracketKey(tokens);
+        if (resolvedBrackets.containsKey(key)) {
+            return resolvedBrackets.get(key);
+        }
+
+        IBracketHandler[] handlers = tokens.isEmpty() ? null : bracketHandlersByPrefix.get(tokens.get(0).getValue());
+        if (handlers == null) {
+            handlers = unprefixedBracketHandlers;
+        }
+
+        IZenSymbol result = null;
+        for (IBracketHandler handler : handlers) {
             IZenSymbol symbol = handler.resolve(environment, tokens);
             if (symbol != null) {
-                return symbol;
+                result = symbol;
+                break;
             }
         }
 
-        return null;
+        resolvedBrackets.put(key, result);
+        return result;
     }
 
     public static IZenSymbol getStaticFunction(Class cls, String name, Class... arguments) {
@@ -138,7 +182,68 @@ public class GlobalRegistry {
         }
     }
 
+    private static void addRegistration(String registration) {
+        registrations.add(registration);
+    }
+
+    /**
+     * Returns a hash of the public members of a class and their annotations, so that a changed class results in a
+     * different registration even if its name and the mod version stay the same.
+     */
+    private static String getFingerprint(Class<?> cls) {
+        List<String> members = new ArrayList<String>();
+        for (Method method : cls.getMethods()) {
+            members.add(method.toGenericString() + Arrays.toString(method.getAnnotations()));
+        }
+        for (Field field : cls.getFields()) {
+            members.add(field.toGenericString() + Arrays.toString(field.getAnnotations()));
+        }
+        Collections.sort(members);
+        return HashUtil.sha256(String.join("\n", members).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Rebuilds the bracket handler index. Each prefix maps to its own handlers and the handlers without a prefix,
+     * keeping the registration order.
+     */
+    private static void indexBracketHandlers() {
+        List<IBracketHandler> unprefixed = new ArrayList<IBracketHandler>();
+        Set<String> prefixes = new HashSet<String>();
+        for (IBracketHandler handler : bracketHandlers) {
+            if (handler instanceof IPrefixedBracketHandler) {
+                prefixes.add(((IPrefixedBracketHandler) handler).getBracketPrefix());
+            } else {
+                unprefixed.add(handler);
+            }
+        }
+
+        bracketHandlersByPrefix.clear();
+        for (String prefix : prefixes) {
+            List<IBracketHandler> handlers = new ArrayList<IBracketHandler>();
+            for (IBracketHandler handler : bracketHandlers) {
+                if (!(handler instanceof IPrefixedBracketHandler)
+                        || prefix.equals(((IPrefixedBracketHandler) handler).getBracketPrefix())) {
+                    handlers.add(handler);
+                }
+            }
+            bracketHandlersByPrefix.put(prefix, handlers.toArray(NO_BRACKET_HANDLERS));
+        }
+        unprefixedBracketHandlers = unprefixed.toArray(NO_BRACKET_HANDLERS);
+        resolvedBrackets = new HashMap<String, IZenSymbol>();
+    }
+
+    private static String getBracketKey(List<Token> tokens) {
+        StringBuilder key = new StringBuilder();
+        for (Token token : tokens) {
+            key.append(token.getValue()).append('\0');
+        }
+        return key.toString();
+    }
+
     public static IEnvironmentGlobal makeGlobalEnvironment(Map<String, byte[]> classes) {
+        synchronized (GlobalRegistry.class) {
+            resolvedBrackets = new HashMap<String, IZenSymbol>();
+        }
         return new MyGlobalEnvironment(classes);
     }
 
@@ -230,6 +335,10 @@ public class GlobalRegistry {
         }
     }
 
+    /**
+     * Global environment of a script group. Its files may be parsed concurrently, so access to shared state is
+     * synchronized.
+     */
     private static class MyGlobalEnvironment implements IEnvironmentGlobal {
 
         private final Map<String, byte[]> classes;
@@ -253,27 +362,27 @@ public class GlobalRegistry {
         }
 
         @Override
-        public String makeClassName() {
+        public synchronized String makeClassName() {
             return generator.generate();
         }
 
         @Override
-        public String makeClassNameWithMiddleName(String middleName) {
+        public synchronized String makeClassNameWithMiddleName(String middleName) {
             return generator.generateWithMiddleName(middleName);
         }
 
         @Override
-        public boolean containsClass(String name) {
+        public synchronized boolean containsClass(String name) {
             return classes.containsKey(name);
         }
 
         @Override
-        public void putClass(String name, byte[] data) {
+        public synchronized void putClass(String name, byte[] data) {
             classes.put(name, data);
         }
 
         @Override
-        public IPartialExpression getValue(String name, ZenPosition position) {
+        public synchronized IPartialExpression getValue(String name, ZenPosition position) {
             if (symbols.containsKey(name)) {
                 return symbols.get(name).instance(position);
             } else if (globals.containsKey(name)) {
@@ -289,7 +398,7 @@ public class GlobalRegistry {
         }
 
         @Override
-        public void putValue(String name, IZenSymbol value, ZenPosition position) {
+        public synchronized void putValue(String name, IZenSymbol value, ZenPosition position) {
             if (symbols.containsKey(name)) {
                 error(position, "Value already defined in this scope: " + name);
             } else {
@@ -299,7 +408,9 @@ public class GlobalRegistry {
 
         @Override
         public ZenType getType(Type type) {
-            return types.getType(type);
+            synchronized (types) {
+                return types.getType(type);
+            }
         }
 
         @Override
@@ -27,4 +27,15 @@ public interface ILogger {
 
     @ZenMethod
     public void logError(String message, Throwable exception);
+
+    /**
+     * Checks if this logger writes messages of the given level anywhere. Callers can use this to avoid building
+     * messages nobody will read. Loggers that don't filter by level log everything.
+     *
+     * @param level message level
+     * @return true if messages of that level are logged
+     */
+    public default boolean isEnabled(LogLevel level) {
+        return true;
+    }
 }
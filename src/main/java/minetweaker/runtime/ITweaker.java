@@ -57,6 +57,28 @@ public interface ITweaker {
      */
     public void setScriptProvider(IScriptProvider provider);
 
+    /**
+     * Sets the cache used to skip compilation of unchanged script groups. Null disables caching.
+     * 
+     * @param cache script cache
+     */
+    public void setScriptCache(ScriptCache cache);
+
+    /**
+     * Enables or disables parsing the files of a script group on multiple threads.
+     * 
+     * @param parallel true to parse in parallel
+     */
+    public void setParallelParsing(boolean parallel);
+
+    /**
+     * Enables or disables staged applying. If enabled, batchable actions issued by scripts are applied together after
+     * all scripts have been executed.
+     * 
+     * @param staged true to stage batchable actions
+     */
+    public void setStagedApply(boolean staged);
+
     /**
      * Executes all scripts provided by the script provider.
      */
@@ -0,0 +1,20 @@
+package minetweaker.runtime;
+
+/**
+ * Severity of a log message. Loggers can be configured to ignore messages below a certain level.
+ */
+public enum LogLevel {
+    INFO,
+    WARNING,
+    ERROR;
+
+    /**
+     * Checks if messages of the given level pass this level as threshold.
+     *
+     * @param level message level
+     * @return true if messages of that level should be logged
+     */
+    public boolean accepts(LogLevel level) {
+        return level.ordinal() >= ordinal();
+    }
+}
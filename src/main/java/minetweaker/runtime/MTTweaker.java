@@ -8,15 +8,24 @@ package minetweaker.runtime;
 import static stanhebben.zenscript.ZenModule.compileScripts;
 import static stanhebben.zenscript.ZenModule.extractClassName;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import minetweaker.IBatchableAction;
 import minetweaker.IUndoableAction;
 import minetweaker.MineTweakerAPI;
+import minetweaker.MineTweakerImplementationAPI;
 import minetweaker.api.item.IIngredient;
 import minetweaker.runtime.providers.ScriptProviderMemory;
 import stanhebben.zenscript.ZenModule;
@@ -38,7 +47,14 @@ public class MTTweaker implements ITweaker {
     private final Set<IUndoableAction> wereStuck = new LinkedHashSet<IUndoableAction>();
     private final Map<Object, IUndoableAction> stuckOverridable = new HashMap<Object, IUndoableAction>();
 
+    private static ExecutorService parsePool = null;
+
     private IScriptProvider scriptProvider;
+    private ScriptCache scriptCache = null;
+    private boolean parallelParsing = false;
+    private boolean stagedApply = false;
+    private boolean loading = false;
+    private final Map<Object, List<IBatchableAction>> staged = new LinkedHashMap<>();
     private byte[] scriptData;
 
     @Override
@@ -48,7 +64,7 @@ public class MTTweaker implements ITweaker {
 
     @Override
     public void apply(IUndoableAction action) {
-        MineTweakerAPI.logInfo(action.describe());
+        MineTweakerAPI.logInfo(action::describe);
 
         Object overrideKey = action.getOverrideKey();
         if (wereStuck.contains(action)) {
@@ -64,7 +80,12 @@ public class MTTweaker implements ITweaker {
                 stuckOverridable.remove(overrideKey);
             }
 
-            action.apply();
+            if (loading && stagedApply && action instanceof IBatchableAction) {
+                IBatchableAction batchable = (IBatchableAction) action;
+                staged.computeIfAbsent(batchable.getBatchKey(), k -> new ArrayList<>()).add(batchable);
+            } else {
+                action.apply();
+            }
         }
 
         actions.add(action);
@@ -83,12 +104,12 @@ public class MTTweaker implements ITweaker {
         for (int i = actions.size() - 1; i >= 0; i--) {
             IUndoableAction action = actions.get(i);
             if (action.canUndo()) {
-                MineTweakerAPI.logInfo(action.describeUndo());
+                MineTweakerAPI.logInfo(action::describeUndo);
                 action.undo();
             } else {
-                MineTweakerAPI.logInfo("[Stuck] 1 " + action.describe());
-                MineTweakerAPI.logInfo("[Stuck] 2 " + action.describeUndo());
-                MineTweakerAPI.logInfo("[Stuck] 3 " + action.toString());
+                MineTweakerAPI.logInfo(() -> "[Stuck] 1 " + action.describe());
+                MineTweakerAPI.logInfo(() -> "[Stuck] 2 " + action.describeUndo());
+                MineTweakerAPI.logInfo(() -> "[Stuck] 3 " + action.toString());
 
                 stuck.add(0, action);
                 wereStuck.add(action);
@@ -108,12 +129,71 @@ public class MTTweaker implements ITweaker {
         scriptProvider = provider;
     }
 
+    @Override
+    public void setScriptCache(ScriptCache cache) {
+        scriptCache = cache;
+    }
+
+    @Override
+    public void setParallelParsing(boolean parallel) {
+        parallelParsing = parallel;
+    }
+
+    @Override
+    public void setStagedApply(boolean staged) {
+        stagedApply = staged;
+    }
+
     @Override
     public void load() {
         ZenModule.loadedClasses.clear();
         System.out.println("Loading scripts");
 
+        PhaseTimer timer = new PhaseTimer();
+        long start = System.nanoTime();
         scriptData = ScriptProviderMemory.collect(scriptProvider);
+        timer.read += System.nanoTime() - start;
+
+        loading = true;
+        try {
+            executeScripts(timer);
+        } finally {
+            loading = false;
+
+            start = System.nanoTime();
+            applyStaged();
+            timer.execute += System.nanoTime() - start;
+        }
+
+        MineTweakerAPI.logInfo(
+                "Loaded scripts: read " + toMillis(timer.read)
+                        + " ms, parse "
+                        + toMillis(timer.parse)
+                        + " ms, compile "
+                        + toMillis(timer.compile)
+                        + " ms, execute "
+                        + toMillis(timer.execute)
+                        + " ms");
+
+        if (wereStuck.size() > 0) {
+            MineTweakerAPI.logWarning(Integer.toString(wereStuck.size()) + " modifications were stuck");
+            for (IUndoableAction action : wereStuck) {
+                MineTweakerAPI.logInfo(() -> "Stuck: " + action.describe());
+            }
+        }
+    }
+
+    @Override
+    public byte[] getScriptData() {
+        return scriptData;
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void executeScripts(PhaseTimer timer) {
+        long start;
         Set<String> executed = new HashSet<>();
 
         Iterator<IScriptIterator> scripts = scriptProvider.getScripts();
@@ -123,64 +203,208 @@ public class MTTweaker implements ITweaker {
             if (!executed.contains(script.getGroupName())) {
                 executed.add(script.getGroupName());
 
-                Map<String, byte[]> classes = new HashMap<>();
-                IEnvironmentGlobal environmentGlobal = GlobalRegistry.makeGlobalEnvironment(classes);
-
-                List<ZenParsedFile> files = new ArrayList<>();
+                List<String> names = new ArrayList<>();
+                List<byte[]> contents = new ArrayList<>();
+                boolean cacheable = scriptCache != null;
 
+                start = System.nanoTime();
                 while (script.next()) {
-                    Reader reader = null;
-                    try {
-                        reader = new InputStreamReader(new BufferedInputStream(script.open()), StandardCharsets.UTF_8);
-
-                        String filename = script.getName();
-                        String className = extractClassName(filename);
-
-                        ZenTokener parser = new ZenTokener(reader, environmentGlobal.getEnvironment(), filename, false);
-                        ZenParsedFile pfile = new ZenParsedFile(filename, className, parser, environmentGlobal);
-                        files.add(pfile);
+                    try (InputStream input = script.open()) {
+                        contents.add(read(input));
+                        names.add(script.getName());
                     } catch (IOException ex) {
                         MineTweakerAPI.logError("Could not load script " + script.getName() + ": " + ex.getMessage());
-                    } catch (ParseException ex) {
-                        // ex.printStackTrace();
-                        MineTweakerAPI.logError(
-                                "Error parsing " + ex.getFile()
-                                        .getFileName() + ":" + ex.getLine() + " -- " + ex.getExplanation());
-                    } catch (Exception ex) {
-                        MineTweakerAPI.logError("Error loading " + script.getName() + ": " + ex.toString(), ex);
-                    }
-
-                    if (reader != null) {
-                        try {
-                            reader.close();
-                        } catch (IOException ignored) {}
+                        cacheable = false;
                     }
                 }
 
+                String cacheKey = cacheable ? scriptCache.getKey(script.getGroupName(), names, contents) : null;
+                ScriptCache.Entry cached = cacheKey == null ? null : scriptCache.load(cacheKey);
+                timer.read += System.nanoTime() - start;
+
                 try {
                     String filename = script.getGroupName();
                     System.out.println("MineTweaker: Loading " + filename);
-                    compileScripts(filename, files, environmentGlobal, DEBUG);
+
+                    Map<String, byte[]> classes;
+                    if (cached == null) {
+                        classes = new HashMap<>();
+
+                        WarningCollector warnings = new WarningCollector();
+                        int errors = MineTweakerImplementationAPI.logger.getErrorCount();
+                        if (cacheKey != null) MineTweakerImplementationAPI.logger.addLogger(warnings);
+                        try {
+                            compileGroup(filename, names, contents, classes, timer);
+                        } finally {
+                            MineTweakerImplementationAPI.logger.removeLogger(warnings);
+                        }
+
+                        // groups with errors are not cached, so that their errors are reported again on the next load
+                        if (cacheKey != null && MineTweakerImplementationAPI.logger.getErrorCount() == errors) {
+                            scriptCache.store(cacheKey, classes, warnings.getWarnings());
+                        }
+                    } else {
+                        classes = cached.classes;
+                        MineTweakerAPI.logInfo("Using cached compilation of " + filename);
+                        for (String warning : cached.warnings) {
+                            MineTweakerAPI.logWarning(warning);
+                        }
+                    }
 
                     // execute scripts
-                    ZenModule module = new ZenModule(classes, MineTweakerAPI.class.getClassLoader());
-                    module.getMain().run();
+                    start = System.nanoTime();
+                    try {
+                        ZenModule module = new ZenModule(classes, MineTweakerAPI.class.getClassLoader());
+                        module.getMain().run();
+                    } finally {
+                        timer.execute += System.nanoTime() - start;
+                    }
                 } catch (Throwable ex) {
                     MineTweakerAPI.logError("Error executing " + script.getGroupName() + ": " + ex.getMessage(), ex);
                 }
             }
         }
+    }
 
-        if (wereStuck.size() > 0) {
-            MineTweakerAPI.logWarning(Integer.toString(wereStuck.size()) + " modifications were stuck");
-            for (IUndoableAction action : wereStuck) {
-                MineTweakerAPI.logInfo("Stuck: " + action.describe());
+    private void applyStaged() {
+        for (List<IBatchableAction> batch : staged.values()) {
+            try {
+                batch.get(0).applyBatch(batch);
+            } catch (Throwable ex) {
+                MineTweakerAPI.logError("Error applying " + batch.size() + " staged actions: " + ex.getMessage(), ex);
             }
         }
+        staged.clear();
     }
 
-    @Override
-    public byte[] getScriptData() {
-        return scriptData;
+    private void compileGroup(String groupName, List<String> names, List<byte[]> contents,
+            Map<String, byte[]> classes, PhaseTimer timer) {
+        IEnvironmentGlobal environmentGlobal = GlobalRegistry.makeGlobalEnvironment(classes);
+
+        long start = System.nanoTime();
+        List<ZenParsedFile> files = new ArrayList<>();
+        if (parallelParsing && names.size() > 1) {
+            // files are parsed concurrently, but collected and compiled in the original order
+            List<Future<ZenParsedFile>> parsed = new ArrayList<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                String filename = names.get(i);
+                byte[] data = contents.get(i);
+                parsed.add(getParsePool().submit(() -> parse(filename, data, environmentGlobal)));
+            }
+            for (Future<ZenParsedFile> file : parsed) {
+                try {
+                    ZenParsedFile pfile = file.get();
+                    if (pfile != null) files.add(pfile);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    MineTweakerAPI.logError("Interrupted while parsing " + groupName);
+                    return;
+                } catch (ExecutionException ex) {
+                    MineTweakerAPI.logError("Error parsing " + groupName + ": " + ex.getCause(), ex.getCause());
+                }
+            }
+        } else {
+            for (int i = 0; i < names.size(); i++) {
+                ZenParsedFile pfile = parse(names.get(i), contents.get(i), environmentGlobal);
+                if (pfile != null) files.add(pfile);
+            }
+        }
+        timer.parse += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        compileScripts(groupName, files, environmentGlobal, DEBUG);
+        timer.compile += System.nanoTime() - start;
+    }
+
+    private static ZenParsedFile parse(String filename, byte[] contents, IEnvironmentGlobal environmentGlobal) {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(contents), StandardCharsets.UTF_8)) {
+            String className = extractClassName(filename);
+
+            ZenTokener parser = new ZenTokener(reader, environmentGlobal.getEnvironment(), filename, false);
+            return new ZenParsedFile(filename, className, parser, environmentGlobal);
+        } catch (ParseException ex) {
+            // ex.printStackTrace();
+            MineTweakerAPI.logError(
+                    "Error parsing " + ex.getFile()
+                            .getFileName() + ":" + ex.getLine() + " -- " + ex.getExplanation());
+        } catch (Exception ex) {
+            MineTweakerAPI.logError("Error loading " + filename + ": " + ex.toString(), ex);
+        }
+        return null;
+    }
+
+    private static synchronized ExecutorService getParsePool() {
+        if (parsePool == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            parsePool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "MineTweaker script parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return parsePool;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[65536];
+        int bytesRead;
+        while ((bytesRead = input.read(buffer)) >= 0) {
+            output.write(buffer, 0, bytesRead);
+        }
+        return output.toByteArray();
+    }
+
+    // #############################
+    // ### Private inner classes ###
+    // #############################
+
+    /**
+     * Collects the warnings logged while compiling a script group, to be stored with the cached group.
+     */
+    private static class WarningCollector implements ILogger {
+
+        private final List<String> warnings = new ArrayList<>();
+
+        public synchronized List<String> getWarnings() {
+            return new ArrayList<>(warnings);
+        }
+
+        @Override
+        public void logCommand(String message) {}
+
+        @Override
+        public void logInfo(String message) {}
+
+        @Override
+        public synchronized void logWarning(String message) {
+            warnings.add(message);
+        }
+
+        @Override
+        public void logError(String message) {}
+
+        @Override
+        public void logError(String message, Throwable exception) {}
+
+        @Override
+        public boolean isEnabled(LogLevel level) {
+            return level == LogLevel.WARNING;
+        }
+    }
+
+    /**
+     * Time spent in each phase of loading, in nanoseconds.
+     */
+    private static class PhaseTimer {
+
+        private long read;
+        private long parse;
+        private long compile;
+        private long execute;
     }
 }
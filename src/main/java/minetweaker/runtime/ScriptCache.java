@@ -0,0 +1,204 @@
+package minetweaker.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import minetweaker.MineTweakerAPI;
+import minetweaker.util.HashUtil;
+
+/**
+ * On-disk cache of compiled script groups. Entries are keyed by a hash of the script contents, the registered Zen
+ * classes (including a fingerprint of their members), expansions, globals and bracket handlers, and an environment
+ * string and registry digest supplied by the platform (such as the loaded mods and their versions, and the names the
+ * bracket handlers resolve against). Any change to one of these results in
+ * a different key, so entries never have to be invalidated explicitly; unused entries are removed once the cache grows
+ * beyond its maximum size. The warnings logged while compiling a group are stored with it, so that they can be
+ * reported again when the cached entry is used.
+ */
+public class ScriptCache {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String EXTENSION = ".zsc";
+
+    /**
+     * Maximum number of cached groups kept on disk.
+     */
+    private static final int MAX_ENTRIES = 64;
+
+    private final File directory;
+    private final String environment;
+    private volatile String registryDigest = "";
+
+    public ScriptCache(File directory, String environment) {
+        this.directory = directory;
+        this.environment = environment;
+    }
+
+    /**
+     * Sets the digest of the game registries that bracket handlers resolve against. Bracket resolution is compiled into
+     * the cached classes, so entries compiled against different registries must not be reused.
+     *
+     * @param registryDigest registry digest
+     */
+    public void setRegistryDigest(String registryDigest) {
+        this.registryDigest = registryDigest;
+    }
+
+    /**
+     * Calculates the cache key for a script group.
+     *
+     * @param groupName group name
+     * @param names     script file names, in load order
+     * @param contents  script file contents, in load order
+     * @return cache key
+     */
+    public String getKey(String groupName, List<String> names, List<byte[]> contents) {
+        MessageDigest digest = HashUtil.newSha256();
+        update(digest, Integer.toString(FORMAT_VERSION));
+        update(digest, environment);
+        update(digest, registryDigest);
+        for (String registration : GlobalRegistry.getRegistrations()) {
+            update(digest, registration);
+        }
+        update(digest, groupName);
+        for (int i = 0; i < names.size(); i++) {
+            update(digest, names.get(i));
+            digest.update(toBytes(contents.get(i).length));
+            digest.update(contents.get(i));
+        }
+        return HashUtil.toHex(digest.digest());
+    }
+
+    /**
+     * Loads the compiled classes of a script group.
+     *
+     * @param key cache key
+     * @return cached entry, or null if the group is not cached
+     */
+    public Entry load(String key) {
+        File file = new File(directory, key + EXTENSION);
+        if (!file.exists()) return null;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION) return null;
+
+            int count = input.readInt();
+            Map<String, byte[]> classes = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = input.readUTF();
+                byte[] data = new byte[input.readInt()];
+                input.readFully(data);
+                classes.put(name, data);
+            }
+
+            int warningCount = input.readInt();
+            List<String> warnings = new ArrayList<>();
+            for (int i = 0; i < warningCount; i++) {
+                warnings.add(input.readUTF());
+            }
+
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(classes, warnings);
+        } catch (IOException ex) {
+            MineTweakerAPI.logWarning("Could not read script cache entry " + file.getName() + ": " + ex.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the compiled classes of a script group.
+     *
+     * @param key      cache key
+     * @param classes  class bytecode by class name
+     * @param warnings warnings logged while compiling the group
+     */
+    public void store(String key, Map<String, byte[]> classes, List<String> warnings) {
+        if (!directory.exists() && !directory.mkdirs()) return;
+
+        File file = new File(directory, key + EXTENSION);
+        File temporary = new File(directory, key + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeInt(entry.getValue().length);
+                output.write(entry.getValue());
+            }
+            output.writeInt(warnings.size());
+            for (String warning : warnings) {
+                output.writeUTF(warning);
+            }
+        } catch (IOException ex) {
+            MineTweakerAPI.logWarning("Could not write script cache entry " + file.getName() + ": " + ex.getMessage());
+            temporary.delete();
+            return;
+        }
+
+        file.delete();
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            return;
+        }
+
+        prune();
+    }
+
+    // #######################
+    // ### Private methods ###
+    // #######################
+
+    private void prune() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (entries == null || entries.length <= MAX_ENTRIES) return;
+
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < entries.length - MAX_ENTRIES; i++) {
+            entries[i].delete();
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] data = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(toBytes(data.length));
+        digest.update(data);
+    }
+
+    private static byte[] toBytes(int value) {
+        return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+    }
+
+    // ############################
+    // ### Public inner classes ###
+    // ############################
+
+    /**
+     * A cached script group.
+     */
+    public static class Entry {
+
+        public final Map<String, byte[]> classes;
+        public final List<String> warnings;
+
+        public Entry(Map<String, byte[]> classes, List<String> warnings) {
+            this.classes = classes;
+            this.warnings = warnings;
+        }
+    }
+}
@@ -97,6 +97,23 @@ public class ScriptProviderMemory implements IScriptProvider {
         }
     }
 
+    /**
+     * Creates a script provider from script contents that have already been unpacked.
+     *
+     * @param groups file contents by file name, by group name; files are loaded in map order
+     */
+    public ScriptProviderMemory(Map<String, Map<String, byte[]>> groups) {
+        modules = new TreeMap<String, MemoryModule>();
+
+        for (Map.Entry<String, Map<String, byte[]>> group : groups.entrySet()) {
+            List<MemoryFile> files = new ArrayList<MemoryFile>();
+            for (Map.Entry<String, byte[]> file : group.getValue().entrySet()) {
+                files.add(new MemoryFile(file.getKey(), file.getValue()));
+            }
+            modules.put(group.getKey(), new MemoryModule(group.getKey(), files));
+        }
+    }
+
     @Override
     public Iterator<IScriptIterator> getScripts() {
         return new ProviderIterator();
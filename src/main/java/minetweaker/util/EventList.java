@@ -5,88 +5,93 @@
 
 package minetweaker.util;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
 import minetweaker.api.event.IEventHandle;
 
 /**
+ * List of event handlers. Handlers are kept in an immutable array which is replaced on every change, so publishing
+ * never takes a lock and always iterates over a consistent snapshot.
  *
  * @author Stan
  */
 public class EventList<T> {
 
-    private EventNode first = null;
-    private EventNode last = null;
+    private final EventNode<T>[] empty = newArray(0);
+    private final AtomicReference<EventNode<T>[]> nodes = new AtomicReference<>(empty);
 
     public void clear() {
-        first = last = null;
+        nodes.set(empty);
     }
 
     public IEventHandle add(IEventHandler<T> handler) {
-        EventNode node = new EventNode(handler, last, null);
+        EventNode<T> node = new EventNode<>(this, handler);
 
-        synchronized (this) {
-            if (first == null) {
-                first = node;
-            }
-            if (last != null) {
-                last.next = node;
-            }
-            last = node;
-        }
+        EventNode<T>[] current;
+        EventNode<T>[] updated;
+        do {
+            current = nodes.get();
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = node;
+        } while (!nodes.compareAndSet(current, updated));
 
         return node;
     }
 
     public boolean hasHandlers() {
-        return first != null;
+        return nodes.get().length > 0;
     }
 
     public boolean isEmpty() {
-        return first == null;
+        return nodes.get().length == 0;
     }
 
     public void publish(T event) {
-        EventNode current = null;
-
-        synchronized (this) {
-            current = first;
+        for (EventNode<T> node : nodes.get()) {
+            node.handler.handle(event);
         }
+    }
 
-        while (current != null) {
-            current.handler.handle(event);
-
-            synchronized (this) {
-                current = current.next;
+    private void remove(EventNode<T> node) {
+        EventNode<T>[] current;
+        EventNode<T>[] updated;
+        do {
+            current = nodes.get();
+
+            int index = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == node) {
+                    index = i;
+                    break;
+                }
             }
-        }
+            if (index < 0) return;
+
+            updated = current.length == 1 ? empty : newArray(current.length - 1);
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        } while (!nodes.compareAndSet(current, updated));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EventNode<T>[] newArray(int length) {
+        return (EventNode<T>[]) new EventNode[length];
     }
 
-    private class EventNode implements IEventHandle {
+    private static class EventNode<T> implements IEventHandle {
 
+        private final EventList<T> list;
         private final IEventHandler<T> handler;
-        private EventNode next;
-        private EventNode prev;
 
-        public EventNode(IEventHandler<T> handler, EventNode prev, EventNode next) {
+        public EventNode(EventList<T> list, IEventHandler<T> handler) {
+            this.list = list;
             this.handler = handler;
-            this.prev = prev;
-            this.next = next;
         }
 
         @Override
         public void close() {
-            synchronized (EventList.this) {
-                if (prev == null) {
-                    first = next;
-                } else {
-                    prev.next = next;
-                }
-
-                if (next == null) {
-                    last = prev;
-                } else {
-                    next.prev = prev;
-                }
-            }
+            list.remove(this);
         }
     }
 }
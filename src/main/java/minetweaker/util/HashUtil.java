@@ -0,0 +1,50 @@
+package minetweaker.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helpers for content hashes, as used by the script cache and the script synchronization.
+ */
+public class HashUtil {
+
+    private HashUtil() {}
+
+    /**
+     * Creates a new SHA-256 digest.
+     *
+     * @return message digest
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Calculates the SHA-256 hash of the given data.
+     *
+     * @param data data to hash
+     * @return hash, as lower-case hexadecimal string
+     */
+    public static String sha256(byte[] data) {
+        return toHex(newSha256().digest(data));
+    }
+
+    /**
+     * Converts the given bytes to a lower-case hexadecimal string.
+     *
+     * @param data bytes
+     * @return hexadecimal string
+     */
+    public static String toHex(byte[] data) {
+        StringBuilder result = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+}